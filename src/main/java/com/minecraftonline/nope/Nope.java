@@ -39,6 +39,7 @@ import com.minecraftonline.nope.key.NopeKeys;
 import com.minecraftonline.nope.key.zonewand.ImmutableZoneWandManipulator;
 import com.minecraftonline.nope.key.zonewand.ZoneWandHandler;
 import com.minecraftonline.nope.key.zonewand.ZoneWandManipulator;
+import com.minecraftonline.nope.permission.PermissionCache;
 import com.minecraftonline.nope.setting.SettingLibrary;
 import com.minecraftonline.nope.util.Extra;
 import com.minecraftonline.nope.util.Format;
@@ -100,6 +101,10 @@ public class Nope {
   @Getter
   private PlayerMovementHandler playerMovementHandler;
   @Getter
+  private PermissionCache permissionCache;
+  @Getter
+  private ZoneContextCalculator zoneContextCalculator;
+  @Getter
   @Setter
   private boolean valid = true;
 
@@ -129,6 +134,8 @@ public class Nope {
     zoneWandHandler = new ZoneWandHandler();
     collisionHandler = new CollisionHandler();
     playerMovementHandler = new PlayerMovementHandler();
+    permissionCache = new PermissionCache();
+    zoneContextCalculator = new ZoneContextCalculator();
 
     NopeKeys.ZONE_WAND = Key.builder()
         .type(TypeTokens.BOOLEAN_VALUE_TOKEN)
@@ -164,7 +171,12 @@ public class Nope {
     Sponge.getServiceManager()
         .provide(PermissionService.class)
         .ifPresent(service ->
-            service.registerContextCalculator(new ZoneContextCalculator()));
+            service.registerContextCalculator(zoneContextCalculator));
+    // Find the contexts of every player again on the server thread after hosts are edited
+    Sponge.getScheduler().createTaskBuilder()
+        .intervalTicks(1)
+        .execute(zoneContextCalculator::refreshIfEdited)
+        .submit(this);
 
     // Register entire Nope command tree
     commandTree = new CommandTree(new NopeCommandRoot());
@@ -180,6 +192,7 @@ public class Nope {
   @Listener
   public void reload(GameReloadEvent event) {
     loadState();
+    DynamicSettingListeners.register();
   }
 
   /**
@@ -221,7 +234,8 @@ public class Nope {
             new HoconHostTreeImplStorage(),
             Nope.GLOBAL_HOST_NAME,
             s -> "_world-" + s,
-            "[a-zA-Z0-9\\-\\.][a-zA-Z0-9_\\-\\.]*");
+            "[a-zA-Z0-9\\-\\.][a-zA-Z0-9_\\-\\.]*",
+            permissionCache);
         freshTree.load(ZONE_CONFIG_FILENAME);
 
         // Set or replace the host tree
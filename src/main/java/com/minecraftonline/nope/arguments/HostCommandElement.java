@@ -58,7 +58,7 @@ class HostCommandElement extends CommandElement {
   protected Host parseValue(@Nonnull CommandSource source, CommandArgs args)
       throws ArgumentParseException {
     String hostName = args.next().toLowerCase();
-    Host host = Nope.getInstance().getHostTree().getHosts().get(hostName);
+    Host host = Nope.getInstance().getHostTree().getHost(hostName);
 
     if (host != null) {
       return host;
@@ -77,8 +77,7 @@ class HostCommandElement extends CommandElement {
                                @Nonnull CommandContext context) {
     final Predicate<String> startsWith = new StartsWithPredicate(args.nextIfPresent().orElse(""));
     return Nope.getInstance().getHostTree()
-        .getHosts()
-        .keySet()
+        .getHostNames()
         .stream()
         .filter(startsWith)
         .collect(Collectors.toList());
@@ -56,7 +56,6 @@ import com.minecraftonline.nope.arguments.TemplateCommandElement;
 import com.minecraftonline.nope.command.common.CommandNode;
 import com.minecraftonline.nope.command.common.FlagDescription;
 import com.minecraftonline.nope.command.common.LambdaCommandNode;
-import com.minecraftonline.nope.game.listener.DynamicSettingListeners;
 import com.minecraftonline.nope.host.Host;
 import com.minecraftonline.nope.permission.Permissions;
 import com.minecraftonline.nope.util.Format;
@@ -94,7 +93,6 @@ public class ApplyCommand extends LambdaCommandNode {
       host.putAll(args.requireOne("template"));
 
       Nope.getInstance().saveState();
-      DynamicSettingListeners.register();
       src.sendMessage(Format.success("Applied a template to host ",
           Format.host(host)));
       return CommandResult.success();
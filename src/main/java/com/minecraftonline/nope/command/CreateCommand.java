@@ -54,7 +54,6 @@ import com.minecraftonline.nope.arguments.NopeArguments;
 import com.minecraftonline.nope.command.common.CommandNode;
 import com.minecraftonline.nope.command.common.FlagDescription;
 import com.minecraftonline.nope.command.common.LambdaCommandNode;
-import com.minecraftonline.nope.game.listener.DynamicSettingListeners;
 import com.minecraftonline.nope.host.Host;
 import com.minecraftonline.nope.host.VolumeHost;
 import com.minecraftonline.nope.key.zonewand.ZoneWandHandler;
@@ -121,7 +120,6 @@ public class CreateCommand extends LambdaCommandNode {
           return CommandResult.empty();
         }
         Nope.getInstance().saveState();
-        DynamicSettingListeners.register();
         src.sendMessage(Format.success("Successfully created zone ",
             Format.note(zone.getName()), "!"));
         Nope.getInstance().getZoneWandHandler().getSelectionMap().remove(player.getUniqueId());
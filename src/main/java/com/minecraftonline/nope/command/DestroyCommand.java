@@ -53,7 +53,6 @@ import com.minecraftonline.nope.Nope;
 import com.minecraftonline.nope.arguments.NopeArguments;
 import com.minecraftonline.nope.command.common.CommandNode;
 import com.minecraftonline.nope.command.common.LambdaCommandNode;
-import com.minecraftonline.nope.game.listener.DynamicSettingListeners;
 import com.minecraftonline.nope.host.Host;
 import com.minecraftonline.nope.permission.Permissions;
 import com.minecraftonline.nope.util.Format;
@@ -83,7 +82,6 @@ public class DestroyCommand extends LambdaCommandNode {
       }
 
       Nope.getInstance().saveState();
-      DynamicSettingListeners.register();
       src.sendMessage(Format.success("Zone ",
           Format.note(host.getName()),
           " was successfully destroyed."));
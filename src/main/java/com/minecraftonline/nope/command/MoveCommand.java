@@ -35,10 +35,7 @@ import com.minecraftonline.nope.host.VolumeHost;
 import com.minecraftonline.nope.key.zonewand.ZoneWandHandler;
 import com.minecraftonline.nope.permission.Permissions;
 import com.minecraftonline.nope.util.Format;
-import java.util.Objects;
-import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandResult;
-import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.world.World;
 
@@ -75,36 +72,23 @@ public class MoveCommand extends LambdaCommandNode {
         return CommandResult.empty();
       }
 
-      // Remove the host that's moving
-      VolumeHost removed;
+      // Remove the host that's moving and add the new one all at once
+      VolumeHost created;
       try {
-        removed = Nope.getInstance().getHostTree().removeZone(host.getName());
+        created = Nope.getInstance().getHostTree().batch()
+            .removeZone(host.getName())
+            .addZone(host.getName(),
+                world.getUniqueId(),
+                min,
+                max,
+                host.getPriority())
+            .commit()
+            .get(0);
       } catch (IllegalArgumentException e) {
         src.sendMessage(Format.error("Could not move zone: " + e.getMessage()));
         return CommandResult.empty();
       }
-
-      // Add the new one
-      try {
-        VolumeHost created = Nope.getInstance().getHostTree().addZone(
-            host.getName(),
-            world.getUniqueId(),
-            min,
-            max,
-            host.getPriority()
-        );
-        if (created == null) {
-          src.sendMessage(Format.error("Could not create zone"));
-          reAddHost(removed, src);
-          return CommandResult.empty();
-        }
-        created.putAll(removed.getAll());
-
-      } catch (IllegalArgumentException e) {
-        src.sendMessage(Format.error("Could not move zone: " + e.getMessage()));
-        reAddHost(removed, src);
-        return CommandResult.empty();
-      }
+      created.putAll(host.getAll());
 
       Nope.getInstance().saveState();
       src.sendMessage(Format.success(String.format(
@@ -118,28 +102,4 @@ public class MoveCommand extends LambdaCommandNode {
       return CommandResult.success();
     });
   }
-
-  private void reAddHost(VolumeHost host, CommandSource src) {
-    VolumeHost reAdded;
-    try {
-      reAdded = Nope.getInstance().getHostTree().addZone(
-          host.getName(),
-          Objects.requireNonNull(host.getWorldUuid()),
-          new Vector3i(host.getMinX(), host.getMinY(), host.getMinZ()),
-          new Vector3i(host.getMaxX(), host.getMaxY(), host.getMaxZ()),
-          host.getPriority());
-      if (reAdded == null) {
-        src.sendMessage(Format.error("Severe: The host in transit could not be recovered"));
-        Nope.getInstance().getLogger()
-            .error(String.format("Host %s was requested to move by %s. "
-                    + "The move failed and the original host could not be recovered.",
-                host.getName(), src.getName()));
-      }
-    } catch (IllegalArgumentException e) {
-      src.sendMessage(Format.error("Severe: The host in transit could not be recovered"));
-      Sponge.getServer().getConsole().sendMessage(Format.error(
-          "Severe: The host in transit could not be recovered"));
-      e.printStackTrace();
-    }
-  }
 }
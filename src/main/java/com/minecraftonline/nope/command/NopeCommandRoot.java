@@ -53,7 +53,10 @@ import com.minecraftonline.nope.Nope;
 import com.minecraftonline.nope.command.common.CommandNode;
 import com.minecraftonline.nope.host.Host;
 import com.minecraftonline.nope.host.HostTreeImpl;
-import com.minecraftonline.nope.structures.FlexibleHashQueueVolumeTree;
+import com.minecraftonline.nope.structures.CachingVolumeMap;
+import com.minecraftonline.nope.structures.VolumeMap;
+import com.minecraftonline.nope.structures.VolumeMapType;
+import com.minecraftonline.nope.structures.VolumeTree;
 import com.minecraftonline.nope.util.Format;
 import java.util.Collection;
 import java.util.Comparator;
@@ -150,11 +153,21 @@ public class NopeCommandRoot extends CommandNode {
           .getHostTree()
           .getWorldHost(((Player) src).getLocation().getExtent().getUniqueId());
       if (worldHost instanceof HostTreeImpl.WorldHost) {
-        if (((HostTreeImpl.WorldHost) worldHost).getZoneTree()
-            instanceof FlexibleHashQueueVolumeTree) {
+        VolumeMap<?, ?> zoneTree = ((HostTreeImpl.WorldHost) worldHost).getZoneTree();
+        if (zoneTree instanceof CachingVolumeMap) {
           src.sendMessage(Text.of(TextColors.DARK_GRAY, "Cache size: ",
-              ((FlexibleHashQueueVolumeTree<?, ?>)
-                  ((HostTreeImpl.WorldHost) worldHost).getZoneTree()).getCacheSize()));
+              ((CachingVolumeMap<?, ?>) zoneTree).getCacheSize()));
+          zoneTree = ((CachingVolumeMap<?, ?>) zoneTree).getDelegate();
+        }
+        VolumeMapType type = VolumeMapType.of(zoneTree);
+        if (type != null) {
+          src.sendMessage(Text.of(TextColors.DARK_GRAY, "Zone index: ", type.name().toLowerCase()));
+        }
+        if (zoneTree instanceof VolumeTree) {
+          src.sendMessage(Text.of(TextColors.DARK_GRAY, "Zone tree height: ",
+              ((VolumeTree<?, ?>) zoneTree).getHeight(),
+              ", size: ",
+              ((VolumeTree<?, ?>) zoneTree).getSize()));
         }
       }
     }
@@ -55,7 +55,6 @@ import com.minecraftonline.nope.arguments.NopeArguments;
 import com.minecraftonline.nope.command.common.CommandNode;
 import com.minecraftonline.nope.command.common.FlagDescription;
 import com.minecraftonline.nope.command.common.LambdaCommandNode;
-import com.minecraftonline.nope.game.listener.DynamicSettingListeners;
 import com.minecraftonline.nope.host.Host;
 import com.minecraftonline.nope.permission.Permissions;
 import com.minecraftonline.nope.setting.SetSettingKey;
@@ -122,7 +121,6 @@ public class SetCommand extends LambdaCommandNode {
           }
           host.put((SetSettingKey<?>) settingKey, SettingValue.of(Sets.newHashSet()));
           Nope.getInstance().saveState();
-          DynamicSettingListeners.register();
           src.sendMessage(Format.success("Setting ",
               Format.settingKey(settingKey, false),
               " was set to empty on host ",
@@ -162,7 +160,6 @@ public class SetCommand extends LambdaCommandNode {
       }
 
       Nope.getInstance().saveState();
-      DynamicSettingListeners.register();
       src.sendMessage(Format.success("Set setting ",
           Format.settingKey(settingKey, false),
           " on host ",
@@ -25,11 +25,17 @@
 
 package com.minecraftonline.nope.context;
 
+import com.google.common.collect.ImmutableSet;
 import com.minecraftonline.nope.Nope;
 import com.minecraftonline.nope.host.Host;
-import java.util.Optional;
+import com.minecraftonline.nope.host.HostTree;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.service.context.Context;
 import org.spongepowered.api.service.context.ContextCalculator;
@@ -38,9 +44,26 @@ import org.spongepowered.api.service.permission.Subject;
 /**
  * A context calculator for Nope zones for the purpose of
  * context-intelligent permission use.
+ *
+ * <p>The contexts of each player are only found on the server thread,
+ * when the player enters or leaves a host, teleports or joins, and when
+ * any host is edited. Permission plugins may ask for contexts from their
+ * own threads, so asking only reads the contexts found last.
  */
 public class ZoneContextCalculator implements ContextCalculator<Subject> {
 
+  /**
+   * The contexts of the hosts containing each player, which may be read
+   * from the threads of permission plugins.
+   */
+  private final Map<UUID, ImmutableSet<Context>> playerContexts = new ConcurrentHashMap<>();
+  /**
+   * The host tree and its version when the contexts of every player were last found,
+   * which are only read and written on the server thread.
+   */
+  private HostTree refreshedHostTree = null;
+  private long refreshedVersion = 0;
+
   @Override
   public void accumulateContexts(@Nonnull Subject target, @Nonnull Set<Context> accumulator) {
     if (!target.getCommandSource().isPresent()) {
@@ -49,9 +72,7 @@ public class ZoneContextCalculator implements ContextCalculator<Subject> {
     if (!(target.getCommandSource().get() instanceof Player)) {
       return;
     }
-    Nope.getInstance().getHostTree()
-        .getContainingHosts(((Player) target.getCommandSource().get()).getLocation())
-        .forEach(host -> accumulator.add(host.getContext()));
+    accumulator.addAll(getContexts((Player) target.getCommandSource().get()));
   }
 
   @Override
@@ -62,9 +83,73 @@ public class ZoneContextCalculator implements ContextCalculator<Subject> {
     if (!(target.getCommandSource().get() instanceof Player)) {
       return false;
     }
-    return Host.contextKeyToName(context.getKey())
-        .flatMap(name -> Optional.of(Nope.getInstance().getHostTree().getHosts().get(name)))
-        .filter(host -> host.encompasses((Player) target))
-        .isPresent();
+    if (!Host.isContextKey(context.getKey())) {
+      return false;
+    }
+    return getContexts((Player) target.getCommandSource().get()).stream()
+        .anyMatch(hostContext -> hostContext.getKey().equals(context.getKey()));
+  }
+
+  /**
+   * Forget the contexts of a player, like after they leave the server.
+   *
+   * @param playerUuid the id of the player
+   */
+  public void invalidate(@Nonnull UUID playerUuid) {
+    playerContexts.remove(playerUuid);
+  }
+
+  /**
+   * Set the contexts of a player to those of the hosts containing them.
+   * This must be called on the server thread.
+   *
+   * @param playerUuid the id of the player
+   * @param hosts      the hosts containing the player
+   */
+  public void update(@Nonnull UUID playerUuid, @Nonnull Collection<Host> hosts) {
+    ImmutableSet.Builder<Context> contexts = ImmutableSet.builder();
+    hosts.forEach(host -> contexts.add(host.getContext()));
+    playerContexts.put(playerUuid, contexts.build());
+  }
+
+  /**
+   * Find the contexts of a player again at their current location.
+   * This must be called on the server thread.
+   *
+   * @param player the player
+   */
+  public void refresh(@Nonnull Player player) {
+    Collection<Host> hosts = Nope.getInstance().getPlayerMovementHandler().getTrackedHosts(player);
+    if (hosts == null) {
+      hosts = Nope.getInstance().getHostTree().getContainingHosts(player.getLocation());
+    }
+    update(player.getUniqueId(), hosts);
   }
+
+  /**
+   * Find the contexts of every online player again if any host has been
+   * edited, or the host tree has been replaced, since they were last found.
+   * This must be called on the server thread.
+   */
+  public void refreshIfEdited() {
+    HostTree hostTree = Nope.getInstance().getHostTree();
+    if (hostTree == null
+        || (hostTree == refreshedHostTree && hostTree.getVersion() == refreshedVersion)) {
+      return;
+    }
+    refreshedHostTree = hostTree;
+    refreshedVersion = hostTree.getVersion();
+    Sponge.getServer().getOnlinePlayers().forEach(this::refresh);
+  }
+
+  /**
+   * Get the contexts of the hosts containing a player, as last found on the server thread.
+   *
+   * @param player the player
+   * @return the contexts
+   */
+  private Set<Context> getContexts(Player player) {
+    return playerContexts.getOrDefault(player.getUniqueId(), ImmutableSet.of());
+  }
+
 }
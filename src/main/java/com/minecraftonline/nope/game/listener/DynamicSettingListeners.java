@@ -26,11 +26,14 @@
 package com.minecraftonline.nope.game.listener;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.minecraftonline.nope.Nope;
 import com.minecraftonline.nope.host.Host;
+import com.minecraftonline.nope.host.HostTree;
 import com.minecraftonline.nope.setting.SettingKey;
 import com.minecraftonline.nope.setting.SettingLibrary;
+import com.minecraftonline.nope.structures.Cuboid;
 import com.minecraftonline.nope.util.Extra;
 import com.minecraftonline.nope.util.Format;
 import com.minecraftonline.nope.util.Groups;
@@ -40,12 +43,17 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import net.minecraft.entity.monster.EntitySnowman;
 import net.minecraft.entity.projectile.EntityTippedArrow;
 import org.spongepowered.api.block.BlockSnapshot;
@@ -125,7 +133,7 @@ public final class DynamicSettingListeners {
           SettingLibrary.ARMOR_STAND_INTERACT,
           InteractEntityEvent.Secondary.class,
           (event, player) -> event.getTargetEntity().getType().equals(EntityTypes.ARMOR_STAND)
-              && !Nope.getInstance().getHostTree().lookup(SettingLibrary.ARMOR_STAND_INTERACT,
+              && !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.ARMOR_STAND_INTERACT,
               player,
               event.getTargetEntity().getLocation()));
   @DynamicSettingListener
@@ -139,29 +147,40 @@ public final class DynamicSettingListeners {
       new PlayerCauseCancelConditionSettingListener<>(
           SettingLibrary.BLOCK_BREAK,
           ChangeBlockEvent.Break.class,
-          (event, player) -> event.getTransactions().stream().anyMatch(transaction ->
-              !Nope.getInstance().getHostTree().lookup(
-                  SettingLibrary.BLOCK_BREAK,
-                  player,
-                  transaction.getOriginal().getLocation().orElse(transaction.getFinal()
+          (event, player) -> lookupEvent(
+              SettingLibrary.BLOCK_BREAK,
+              player,
+              event.getTransactions().stream()
+                  .map(transaction -> transaction.getOriginal().getLocation().orElse(transaction.getFinal()
                       .getLocation()
                       .orElseThrow(Extra.noLocation(SettingLibrary.BLOCK_BREAK,
                           ChangeBlockEvent.Break.class,
-                          player))))));
+                          player))))
+                  .collect(Collectors.toList()))
+              .contains(false));
   @DynamicSettingListener
   static final SettingListener<ChangeBlockEvent.Place> BLOCK_PLACE_LISTENER =
       new PlayerCauseCancelConditionSettingListener<>(
           SettingLibrary.BLOCK_PLACE,
           ChangeBlockEvent.Place.class,
-          (event, player) -> event.getTransactions().stream().anyMatch(transaction ->
-              !Nope.getInstance().getHostTree().lookup(
-                  SettingLibrary.BLOCK_PLACE,
-                  player,
-                  transaction.getOriginal().getLocation().orElse(transaction.getFinal()
+          (event, player) -> lookupEvent(
+              SettingLibrary.BLOCK_PLACE,
+              player,
+              event.getTransactions().stream()
+                  .map(transaction -> transaction.getOriginal().getLocation().orElse(transaction.getFinal()
                       .getLocation()
                       .orElseThrow(Extra.noLocation(SettingLibrary.BLOCK_PLACE,
                           ChangeBlockEvent.Place.class,
-                          player))))));
+                          player))))
+                  .collect(Collectors.toList()))
+              .contains(false));
+  private static final Set<SettingKey<?>> PROPAGATE_NOTIFIER_KEYS = Sets.newHashSet(
+      SettingLibrary.BLOCK_PROPAGATE_ACROSS,
+      SettingLibrary.BLOCK_PROPAGATE_WITHIN);
+  private static final Set<SettingKey<?>> PROPAGATE_RECIPIENT_KEYS = Sets.newHashSet(
+      SettingLibrary.BLOCK_PROPAGATE_ACROSS,
+      SettingLibrary.BLOCK_PROPAGATE_WITHIN,
+      SettingLibrary.TNT_IGNITION);
   @DynamicSettingListener
   static final SettingListener<NotifyNeighborBlockEvent> BLOCK_PROPAGATE_LISTENER =
       new SettingListener<>(
@@ -176,36 +195,28 @@ public final class DynamicSettingListeners {
                     new RuntimeException("A NotifyNeighborBlockEvent needs a block cause"))
                 .getLocation();
 
+            /* The notifier is the same in every direction, so resolve it once */
+            HostTree.Resolution from = Nope.getInstance().getHostTree()
+                .resolve(PROPAGATE_NOTIFIER_KEYS, player, notifier);
+            Host fromAcross = from.getDictator(SettingLibrary.BLOCK_PROPAGATE_ACROSS);
+            boolean fromAcrossData = from.getData(SettingLibrary.BLOCK_PROPAGATE_ACROSS);
+            Host fromWithin = from.getDictator(SettingLibrary.BLOCK_PROPAGATE_WITHIN);
+            boolean fromWithinData = from.getData(SettingLibrary.BLOCK_PROPAGATE_WITHIN);
+
             // A filter to determine whether a notification should be canceled in some direction
             Predicate<Direction> directionsFilter = (direction -> {
               Location<World> recipient = notifier.add(direction.asBlockOffset());
+              HostTree.Resolution to = Nope.getInstance().getHostTree()
+                  .resolve(PROPAGATE_RECIPIENT_KEYS, player, recipient);
 
               if (recipient.getBlock().getType().equals(BlockTypes.TNT)
-                  && !Nope.getInstance()
-                  .getHostTree()
-                  .lookup(SettingLibrary.TNT_IGNITION,
-                      player,
-                      recipient)) {
+                  && !to.getData(SettingLibrary.TNT_IGNITION)) {
                 return true;
               }
 
-              Host fromAcross = Nope.getInstance().getHostTree()
-                  .lookupDictator(SettingLibrary.BLOCK_PROPAGATE_ACROSS, player, notifier);
-              boolean fromAcrossData = fromAcross == null
-                  ? SettingLibrary.BLOCK_PROPAGATE_ACROSS.getDefaultData()
-                  : fromAcross.getData(SettingLibrary.BLOCK_PROPAGATE_ACROSS, player);
-              Host toAcross = Nope.getInstance().getHostTree()
-                  .lookupDictator(SettingLibrary.BLOCK_PROPAGATE_ACROSS, player, recipient);
-              boolean toAcrossData = toAcross == null
-                  ? SettingLibrary.BLOCK_PROPAGATE_ACROSS.getDefaultData()
-                  : toAcross.getData(SettingLibrary.BLOCK_PROPAGATE_ACROSS, player);
-              Host fromWithin = Nope.getInstance().getHostTree()
-                  .lookupDictator(SettingLibrary.BLOCK_PROPAGATE_WITHIN, player, notifier);
-              boolean fromWithinData = fromWithin == null
-                  ? SettingLibrary.BLOCK_PROPAGATE_WITHIN.getDefaultData()
-                  : fromWithin.getData(SettingLibrary.BLOCK_PROPAGATE_WITHIN, player);
-              Host toWithin = Nope.getInstance().getHostTree()
-                  .lookupDictator(SettingLibrary.BLOCK_PROPAGATE_WITHIN, player, recipient);
+              Host toAcross = to.getDictator(SettingLibrary.BLOCK_PROPAGATE_ACROSS);
+              boolean toAcrossData = to.getData(SettingLibrary.BLOCK_PROPAGATE_ACROSS);
+              Host toWithin = to.getDictator(SettingLibrary.BLOCK_PROPAGATE_WITHIN);
 
               return (!(Objects.equals(fromAcross, toAcross)) && (!fromAcrossData || !toAcrossData))
                   || (Objects.equals(fromWithin, toWithin) && (!fromWithinData));
@@ -219,7 +230,7 @@ public final class DynamicSettingListeners {
           SettingLibrary.BLOCK_TRAMPLE,
           ChangeBlockEvent.class,
           (event, player) -> event.getTransactions().stream().anyMatch(transaction ->
-              !Nope.getInstance().getHostTree().lookup(
+              !Nope.getInstance().getHostTree().lookupBoolean(
                   SettingLibrary.BLOCK_TRAMPLE,
                   player,
                   transaction.getOriginal().getLocation().orElse(transaction.getFinal()
@@ -242,7 +253,8 @@ public final class DynamicSettingListeners {
             if (transaction.getOriginal().getState().getType().equals(BlockTypes.CONCRETE_POWDER)
                 && transaction.getFinal().getState().getType().equals(BlockTypes.CONCRETE)) {
               if (!Nope.getInstance().getHostTree()
-                  .lookupAnonymous(SettingLibrary.CONCRETE_SOLIDIFICATION,
+                  .lookupBoolean(SettingLibrary.CONCRETE_SOLIDIFICATION,
+                      null,
                       transaction.getFinal().getLocation()
                           .orElseThrow(Extra.noLocation(SettingLibrary.CONCRETE_SOLIDIFICATION,
                               ChangeBlockEvent.class,
@@ -256,18 +268,17 @@ public final class DynamicSettingListeners {
       new CancelConditionSettingListener<>(
           SettingLibrary.CROP_GROWTH,
           ChangeBlockEvent.Grow.class,
-          event -> event.getTransactions().stream().anyMatch(transaction ->
-              !Nope.getInstance().getHostTree().lookupAnonymous(SettingLibrary.CROP_GROWTH,
-                  transaction.getOriginal().getLocation()
+          event -> lookupEvent(
+              SettingLibrary.CROP_GROWTH,
+              null,
+              event.getTransactions().stream()
+                  .flatMap(transaction -> Stream.of(transaction.getOriginal(), transaction.getFinal()))
+                  .map(snapshot -> snapshot.getLocation()
                       .orElseThrow(Extra.noLocation(SettingLibrary.CROP_GROWTH,
                           ChangeBlockEvent.Grow.class,
                           null)))
-                  ||
-                  !Nope.getInstance().getHostTree().lookupAnonymous(SettingLibrary.CROP_GROWTH,
-                      transaction.getFinal().getLocation()
-                          .orElseThrow(Extra.noLocation(SettingLibrary.CROP_GROWTH,
-                              ChangeBlockEvent.Grow.class,
-                              null)))));
+                  .collect(Collectors.toList()))
+              .contains(false));
   @DynamicSettingListener
   static final SettingListener<SpawnEntityEvent> DROP_EXP_LISTENER =
       new CancelConditionSettingListener<>(
@@ -293,11 +304,11 @@ public final class DynamicSettingListeners {
               .first(EntityTypes.ENDER_PEARL.getEntityClass())
               .isPresent()
               &&
-              (!Nope.getInstance().getHostTree().lookup(SettingLibrary.ENDERPEARL_TELEPORT,
+              (!Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.ENDERPEARL_TELEPORT,
                   player,
                   event.getFromTransform().getLocation())
                   ||
-                  !Nope.getInstance().getHostTree().lookup(SettingLibrary.ENDERPEARL_TELEPORT,
+                  !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.ENDERPEARL_TELEPORT,
                       player,
                       event.getToTransform().getLocation())));
   @DynamicSettingListener
@@ -317,7 +328,7 @@ public final class DynamicSettingListeners {
                   DamageTypes.SUFFOCATE).contains(damageSource.getType()))
               .isPresent()
               && event.getTargetEntity() instanceof Player
-              && !Nope.getInstance().getHostTree().lookup(SettingLibrary.EVP,
+              && !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.EVP,
               (Player) event.getTargetEntity(),
               event.getTargetEntity().getLocation()));
   @DynamicSettingListener
@@ -390,21 +401,52 @@ public final class DynamicSettingListeners {
               int locY = explosion.getLocation().getBlockY();
               int locZ = explosion.getLocation().getBlockZ();
               int radius = (int) Math.ceil(explosion.getRadius());
-              for (int x = locX - radius; x <= locX + radius; x++) {
-                for (int y = locY - radius; y <= locY + radius; y++) {
-                  for (int z = locZ - radius; z <= locZ + radius; z++) {
-                    if (Nope.getInstance().getHostTree().lookupAnonymous(
-                        SettingLibrary.EXPLOSION_GRIEF_BLACKLIST,
-                        new Location<>(explosion.getWorld(), x, y, z))
-                        .stream()
-                        .anyMatch(enu -> enu.getExplosive().isInstance(cause))) {
-                      event.setExplosion(Explosion.builder()
-                          .from(explosion)
-                          .shouldBreakBlocks(false).build());
-                      return;
+              HostTree hostTree = Nope.getInstance().getHostTree();
+              Cuboid box = Cuboid.around(locX, locY, locZ, radius);
+              Predicate<Cuboid> blacklistedWithin = region -> {
+                for (int x = region.getMinX(); x <= region.getMaxX(); x++) {
+                  for (int y = region.getMinY(); y <= region.getMaxY(); y++) {
+                    for (int z = region.getMinZ(); z <= region.getMaxZ(); z++) {
+                      if (hostTree.lookupAnonymous(
+                          SettingLibrary.EXPLOSION_GRIEF_BLACKLIST,
+                          new Location<>(explosion.getWorld(), x, y, z))
+                          .stream()
+                          .anyMatch(enu -> enu.getExplosive().isInstance(cause))) {
+                        return true;
+                      }
                     }
                   }
                 }
+                return false;
+              };
+              Host worldHost = hostTree.getWorldHost(explosion.getWorld().getUniqueId());
+              boolean blacklisted;
+              if (worldHost == null
+                  || Stream.of(worldHost, hostTree.getGlobalHost())
+                  .map(host -> host.get(SettingLibrary.EXPLOSION_GRIEF_BLACKLIST))
+                  .filter(Optional::isPresent)
+                  .map(value -> value.get().getData())
+                  .findFirst()
+                  .orElse(SettingLibrary.EXPLOSION_GRIEF_BLACKLIST.getDefaultData())
+                  .stream()
+                  .anyMatch(enu -> enu.getExplosive().isInstance(cause))) {
+                // Points outside the zones may be blacklisted, so check every point
+                blacklisted = blacklistedWithin.test(box);
+              } else {
+                // Only a zone whose own value blacklists the cause can blacklist a point
+                blacklisted = hostTree.getIntersectingZones(explosion.getWorld().getUniqueId(), box)
+                    .stream()
+                    .filter(zone -> zone.get(SettingLibrary.EXPLOSION_GRIEF_BLACKLIST)
+                        .map(value -> value.getData()
+                            .stream()
+                            .anyMatch(enu -> enu.getExplosive().isInstance(cause)))
+                        .orElse(false))
+                    .anyMatch(zone -> blacklistedWithin.test(box.intersection(zone)));
+              }
+              if (blacklisted) {
+                event.setExplosion(Explosion.builder()
+                    .from(explosion)
+                    .shouldBreakBlocks(false).build());
               }
             }
           }
@@ -439,32 +481,31 @@ public final class DynamicSettingListeners {
               event.setCancelled(true);
               return;
             }
-            event.getTransactions().stream().filter(Transaction::isValid).forEach(transaction -> {
-              if (
-                  Nope.getInstance().getHostTree()
-                      .lookupAnonymous(SettingLibrary.EXPLOSION_GRIEF_BLACKLIST,
-                          transaction.getOriginal()
-                              .getLocation()
-                              .orElseThrow(Extra.noLocation(
-                                  SettingLibrary.EXPLOSION_GRIEF_BLACKLIST,
-                                  ChangeBlockEvent.Break.class,
-                                  null)))
-                      .stream()
-                      .anyMatch(enu -> enu.getExplosive().isInstance(cause))
-                      ||
-                      Nope.getInstance().getHostTree()
-                          .lookupAnonymous(SettingLibrary.EXPLOSION_GRIEF_BLACKLIST,
-                              transaction.getFinal()
-                                  .getLocation()
-                                  .orElseThrow(Extra.noLocation(
-                                      SettingLibrary.EXPLOSION_GRIEF_BLACKLIST,
-                                      ChangeBlockEvent.Break.class,
-                                      null)))
-                          .stream()
-                          .anyMatch(enu -> enu.getExplosive().isInstance(cause))) {
-                transaction.setValid(false);
+            List<Transaction<BlockSnapshot>> transactions = event.getTransactions()
+                .stream()
+                .filter(Transaction::isValid)
+                .collect(Collectors.toList());
+            // The original and final locations of each transaction, one after the other
+            List<Set<SettingLibrary.Explosive>> blacklists = lookupEvent(
+                SettingLibrary.EXPLOSION_GRIEF_BLACKLIST,
+                null,
+                transactions.stream()
+                    .flatMap(transaction -> Stream.of(transaction.getOriginal(),
+                        transaction.getFinal()))
+                    .map(snapshot -> snapshot.getLocation()
+                        .orElseThrow(Extra.noLocation(
+                            SettingLibrary.EXPLOSION_GRIEF_BLACKLIST,
+                            ChangeBlockEvent.Break.class,
+                            null)))
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < transactions.size(); i++) {
+              if (blacklists.get(2 * i).stream().anyMatch(enu -> enu.getExplosive().isInstance(cause))
+                  || blacklists.get(2 * i + 1)
+                  .stream()
+                  .anyMatch(enu -> enu.getExplosive().isInstance(cause))) {
+                transactions.get(i).setValid(false);
               }
-            });
+            }
           });
   @DynamicSettingListener
   static final SettingListener<DamageEntityEvent> FALL_DAMAGE_LISTENER =
@@ -479,12 +520,13 @@ public final class DynamicSettingListeners {
                   event.getTargetEntity() instanceof User
                       ? !Nope.getInstance()
                       .getHostTree()
-                      .lookup(SettingLibrary.FALL_DAMAGE,
+                      .lookupBoolean(SettingLibrary.FALL_DAMAGE,
                           (User) event.getTargetEntity(),
                           event.getTargetEntity().getLocation())
                       : !Nope.getInstance()
                       .getHostTree()
-                      .lookupAnonymous(SettingLibrary.FALL_DAMAGE,
+                      .lookupBoolean(SettingLibrary.FALL_DAMAGE,
+                          null,
                           event.getTargetEntity().getLocation()))
               .isPresent());
   @DynamicSettingListener
@@ -500,7 +542,7 @@ public final class DynamicSettingListeners {
               .stream()
               .anyMatch(trans -> !Nope.getInstance()
                   .getHostTree()
-                  .lookupAnonymous(SettingLibrary.FIRE_EFFECT, trans.getFinal()
+                  .lookupBoolean(SettingLibrary.FIRE_EFFECT, null, trans.getFinal()
                       .getLocation()
                       .orElseThrow(Extra.noLocation(SettingLibrary.FIRE_EFFECT,
                           ChangeBlockEvent.class,
@@ -516,7 +558,7 @@ public final class DynamicSettingListeners {
               .anyMatch(trans -> trans.getFinal().getState().getType().equals(BlockTypes.FIRE)
                   && !Nope.getInstance()
                   .getHostTree()
-                  .lookup(SettingLibrary.FIRE_IGNITION,
+                  .lookupBoolean(SettingLibrary.FIRE_IGNITION,
                       (Player) event.getSource(),
                       trans.getFinal()
                           .getLocation()
@@ -536,7 +578,7 @@ public final class DynamicSettingListeners {
               .anyMatch(trans -> trans.getFinal().getState().getType().equals(BlockTypes.FIRE)
                   && !Nope.getInstance()
                   .getHostTree()
-                  .lookupAnonymous(SettingLibrary.FIRE_NATURAL_IGNITION, trans.getFinal()
+                  .lookupBoolean(SettingLibrary.FIRE_NATURAL_IGNITION, null, trans.getFinal()
                       .getLocation()
                       .orElseThrow(Extra.noLocation(SettingLibrary.FIRE_NATURAL_IGNITION,
                           ChangeBlockEvent.class,
@@ -551,7 +593,7 @@ public final class DynamicSettingListeners {
               .getType()
               .equals(BlockTypes.FLOWER_POT)
               && !Nope.getInstance().getHostTree()
-              .lookup(SettingLibrary.FLOWER_POT_INTERACT,
+              .lookupBoolean(SettingLibrary.FLOWER_POT_INTERACT,
                   player,
                   event.getTargetBlock().getLocation()
                       .orElseThrow(Extra.noLocation(SettingLibrary.INTERACT,
@@ -583,7 +625,7 @@ public final class DynamicSettingListeners {
               .filter(entity -> entity.getType().equals(EntityTypes.FIREBALL))
               .anyMatch(entity -> !Nope.getInstance()
                   .getHostTree()
-                  .lookupAnonymous(SettingLibrary.GHAST_FIREBALL, entity.getLocation())));
+                  .lookupBoolean(SettingLibrary.GHAST_FIREBALL, null, entity.getLocation())));
   @DynamicSettingListener
   static final SettingListener<ChangeBlockEvent> GRASS_GROWTH_LISTENER =
       new CancelConditionSettingListener<>(
@@ -602,10 +644,10 @@ public final class DynamicSettingListeners {
             return (
                 owner.isPresent()
                     && owner.get().getPlayer().isPresent()
-                    && !Nope.getInstance().getHostTree().lookup(SettingLibrary.HOOK_ENTITY,
+                    && !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.HOOK_ENTITY,
                     owner.get(),
                     owner.get().getPlayer().get().getLocation()))
-                || !Nope.getInstance().getHostTree().lookup(SettingLibrary.HOOK_ENTITY,
+                || !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.HOOK_ENTITY,
                 owner.orElse(null),
                 event.getTargetEntity().getLocation());
           });
@@ -638,7 +680,7 @@ public final class DynamicSettingListeners {
           InteractBlockEvent.Secondary.class,
           (event, player) -> !Nope.getInstance()
               .getHostTree()
-              .lookup(SettingLibrary.INTERACT,
+              .lookupBoolean(SettingLibrary.INTERACT,
                   player,
                   event.getTargetBlock()
                       .getLocation()
@@ -646,10 +688,8 @@ public final class DynamicSettingListeners {
                           InteractBlockEvent.Secondary.class,
                           player)))
               || !Nope.getInstance()
-              .getHostTree()
-              .lookup(SettingLibrary.INTERACT,
-                  player,
-                  player.getLocation()));
+              .getPlayerMovementHandler()
+              .lookupBoolean(SettingLibrary.INTERACT, player));
   @DynamicSettingListener
   static final SettingListener<DamageEntityEvent> INVINCIBLE_ANIMALS_LISTENER =
       new CancelConditionSettingListener<>(
@@ -658,8 +698,9 @@ public final class DynamicSettingListeners {
           event -> event.getTargetEntity() instanceof Animal
               && Nope.getInstance()
               .getHostTree()
-              .lookupAnonymous(
+              .lookupBoolean(
                   SettingLibrary.INVINCIBLE_ANIMALS,
+                  null,
                   event.getTargetEntity().getLocation()));
   @DynamicSettingListener
   static final SettingListener<DamageEntityEvent> INVINCIBLE_MOBS_LISTENER =
@@ -670,8 +711,9 @@ public final class DynamicSettingListeners {
               && !(event.getTargetEntity() instanceof Player)
               && Nope.getInstance()
               .getHostTree()
-              .lookupAnonymous(
+              .lookupBoolean(
                   SettingLibrary.INVINCIBLE_MOBS,
+                  null,
                   event.getTargetEntity().getLocation()));
   @DynamicSettingListener
   static final SettingListener<DamageEntityEvent> INVINCIBLE_PLAYERS_LISTENER =
@@ -681,7 +723,7 @@ public final class DynamicSettingListeners {
           event -> event.getTargetEntity() instanceof Player
               && Nope.getInstance()
               .getHostTree()
-              .lookup(
+              .lookupBoolean(
                   SettingLibrary.INVINCIBLE_PLAYERS,
                   (Player) event.getTargetEntity(),
                   event.getTargetEntity().getLocation()));
@@ -691,9 +733,8 @@ public final class DynamicSettingListeners {
           SettingLibrary.ITEM_DROP,
           ClickInventoryEvent.Creative.class,
           (event, player) -> {
-            boolean cancel = !Nope.getInstance().getHostTree().lookup(SettingLibrary.ITEM_DROP,
-                player,
-                player.getLocation());
+            boolean cancel = !Nope.getInstance().getPlayerMovementHandler()
+                .lookupBoolean(SettingLibrary.ITEM_DROP, player);
             if (cancel) {
               player.sendMessage(Format.warn(Format.hover("Don't drop anything! Hover to see more.",
                   "Item drop is disabled here. "
@@ -708,10 +749,8 @@ public final class DynamicSettingListeners {
           SettingLibrary.ITEM_DROP,
           DropItemEvent.Dispense.class,
           (event, player) -> !Nope.getInstance()
-              .getHostTree()
-              .lookup(SettingLibrary.ITEM_DROP,
-                  player,
-                  player.getLocation()));
+              .getPlayerMovementHandler()
+              .lookupBoolean(SettingLibrary.ITEM_DROP, player));
   @DynamicSettingListener
   static final SettingListener<AttackEntityEvent> ITEM_FRAME_ATTACK_LISTENER =
       new CancelConditionSettingListener<>(
@@ -728,7 +767,7 @@ public final class DynamicSettingListeners {
           (event, player) -> event.getTargetEntity().getType().equals(EntityTypes.ITEM_FRAME)
               && !Nope.getInstance()
               .getHostTree()
-              .lookup(SettingLibrary.ITEM_FRAME_INTERACT,
+              .lookupBoolean(SettingLibrary.ITEM_FRAME_INTERACT,
                   player,
                   event.getTargetEntity().getLocation()));
   @DynamicSettingListener
@@ -743,7 +782,7 @@ public final class DynamicSettingListeners {
           SettingLibrary.ITEM_PICKUP,
           ChangeInventoryEvent.Pickup.Pre.class,
           (event, player) -> !Nope.getInstance().getHostTree()
-              .lookup(SettingLibrary.ITEM_PICKUP,
+              .lookupBoolean(SettingLibrary.ITEM_PICKUP,
                   player,
                   event.getTargetEntity().getLocation()));
   @DynamicSettingListener
@@ -763,7 +802,8 @@ public final class DynamicSettingListeners {
                     .getType())) {
                   return;
                 }
-                if (!Nope.getInstance().getHostTree().lookupAnonymous(SettingLibrary.LAVA_GRIEF,
+                if (!Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.LAVA_GRIEF,
+                    null,
                     transaction.getFinal().getLocation().orElseThrow(Extra.noLocation(
                         SettingLibrary.LAVA_GRIEF,
                         ChangeBlockEvent.Break.class,
@@ -788,7 +828,8 @@ public final class DynamicSettingListeners {
                     .equals(BlockTypes.FLOWING_LAVA)) {
                   if (!Nope.getInstance()
                       .getHostTree()
-                      .lookupAnonymous(SettingLibrary.LAVA_FLOW,
+                      .lookupBoolean(SettingLibrary.LAVA_FLOW,
+                          null,
                           transaction.getFinal()
                               .getLocation()
                               .orElseThrow(Extra.noLocation(SettingLibrary.LAVA_FLOW,
@@ -821,7 +862,7 @@ public final class DynamicSettingListeners {
       new PlayerRootCancelConditionSettingListener<>(
           SettingLibrary.LEASH,
           LeashEntityEvent.class,
-          (event, player) -> !Nope.getInstance().getHostTree().lookup(SettingLibrary.LEASH,
+          (event, player) -> !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.LEASH,
               player,
               event.getTargetEntity().getLocation()));
   @DynamicSettingListener
@@ -833,7 +874,8 @@ public final class DynamicSettingListeners {
               spawned instanceof Lightning
                   && !Nope.getInstance()
                   .getHostTree()
-                  .lookupAnonymous(SettingLibrary.LIGHTNING,
+                  .lookupBoolean(SettingLibrary.LIGHTNING,
+                      null,
                       spawned.getLocation())));
   @DynamicSettingListener
   static final SettingListener<ChangeBlockEvent> MUSHROOM_GROWTH_BROWN_BLOCK_LISTENER =
@@ -891,7 +933,7 @@ public final class DynamicSettingListeners {
               .anyMatch(data -> data.getKey().equals(Keys.HEALTH))
               && !Nope.getInstance()
               .getHostTree()
-              .lookup(SettingLibrary.NATURAL_HEALTH_REGEN,
+              .lookupBoolean(SettingLibrary.NATURAL_HEALTH_REGEN,
                   event.getTargetHolder() instanceof Player
                       ? (Player) event.getTargetHolder()
                       : null,
@@ -919,7 +961,7 @@ public final class DynamicSettingListeners {
             if (!(event.getTargetEntity() instanceof Player)) {
               return;
             }
-            if (Nope.getInstance().getHostTree().lookup(SettingLibrary.PLAYER_COLLISION,
+            if (Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.PLAYER_COLLISION,
                 (Player) event.getTargetEntity(),
                 event.getTargetEntity().getLocation())) {
               Nope.getInstance()
@@ -945,30 +987,30 @@ public final class DynamicSettingListeners {
                     : Optional.empty());
             if (player.isPresent() && ((
                 (event.getTargetEntity() instanceof Player)
-                    && (!Nope.getInstance().getHostTree().lookup(SettingLibrary.PVP,
+                    && (!Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.PVP,
                     player.get(),
                     player.get().getLocation())
-                    || !Nope.getInstance().getHostTree().lookup(SettingLibrary.PVP,
+                    || !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.PVP,
                     player.get(),
                     event.getTargetEntity().getLocation())))
                 || (
                 (event.getTargetEntity() instanceof Animal
                     || event.getTargetEntity() instanceof Squid)
                     &&
-                    (!Nope.getInstance().getHostTree().lookup(SettingLibrary.PVA,
+                    (!Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.PVA,
                         player.get(),
                         player.get().getLocation())
                         ||
-                        !Nope.getInstance().getHostTree().lookup(SettingLibrary.PVA,
+                        !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.PVA,
                             player.get(),
                             event.getTargetEntity().getLocation())))
                 ||
                 ((event.getTargetEntity() instanceof Hostile)
-                    && (!Nope.getInstance().getHostTree().lookup(SettingLibrary.PVH,
+                    && (!Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.PVH,
                     player.get(),
                     player.get().getLocation())
                     ||
-                    !Nope.getInstance().getHostTree().lookup(SettingLibrary.PVH,
+                    !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.PVH,
                         player.get(),
                         event.getTargetEntity().getLocation()))))) {
               event.setCancelled(true);
@@ -1007,25 +1049,23 @@ public final class DynamicSettingListeners {
           SettingLibrary.RIDE,
           RideEntityEvent.Mount.class,
           (event, player) -> !Nope.getInstance()
-              .getHostTree()
-              .lookup(SettingLibrary.RIDE,
-                  player,
-                  player.getLocation())
+              .getPlayerMovementHandler()
+              .lookupBoolean(SettingLibrary.RIDE, player)
               || !Nope.getInstance()
               .getHostTree()
-              .lookupAnonymous(SettingLibrary.RIDE,
+              .lookupBoolean(SettingLibrary.RIDE,
+                  null,
                   event.getTargetEntity().getLocation()));
   @DynamicSettingListener
   static final SettingListener<SleepingEvent.Pre> SLEEP =
       new PlayerRootCancelConditionSettingListener<>(
           SettingLibrary.SLEEP,
           SleepingEvent.Pre.class,
-          (event, player) -> (!Nope.getInstance().getHostTree()
-              .lookup(SettingLibrary.SLEEP,
-                  player,
-                  player.getLocation())
+          (event, player) -> (!Nope.getInstance().getPlayerMovementHandler()
+              .lookupBoolean(SettingLibrary.SLEEP, player)
               || !Nope.getInstance().getHostTree()
-              .lookupAnonymous(SettingLibrary.SLEEP,
+              .lookupBoolean(SettingLibrary.SLEEP,
+                  null,
                   event.getBed()
                       .getLocation()
                       .orElseThrow(Extra.noLocation(SettingLibrary.SLEEP,
@@ -1044,7 +1084,8 @@ public final class DynamicSettingListeners {
                   .equals(BlockTypes.SNOW_LAYER)
                   && !Nope.getInstance()
                   .getHostTree()
-                  .lookupAnonymous(SettingLibrary.SNOWMAN_TRAILS,
+                  .lookupBoolean(SettingLibrary.SNOWMAN_TRAILS,
+                      null,
                       trans.getFinal()
                           .getLocation()
                           .orElseThrow(Extra.noLocation(SettingLibrary.SNOWMAN_TRAILS,
@@ -1096,7 +1137,7 @@ public final class DynamicSettingListeners {
               .equals(EntityTypes.TNT_MINECART)
               && !Nope.getInstance()
               .getHostTree()
-              .lookup(SettingLibrary.TNT_IGNITION,
+              .lookupBoolean(SettingLibrary.TNT_IGNITION,
                   player,
                   event.getTargetEntity().getLocation()));
   @DynamicSettingListener
@@ -1110,7 +1151,7 @@ public final class DynamicSettingListeners {
                   entity.getType().equals(EntityTypes.TNT_MINECART)
                       && !Nope.getInstance()
                       .getHostTree()
-                      .lookup(SettingLibrary.TNT_PLACEMENT,
+                      .lookupBoolean(SettingLibrary.TNT_PLACEMENT,
                           player,
                           entity.getLocation())));
   @DynamicSettingListener
@@ -1124,7 +1165,7 @@ public final class DynamicSettingListeners {
               .equals(BlockTypes.TNT)
               && !Nope.getInstance()
               .getHostTree()
-              .lookup(SettingLibrary.TNT_IGNITION,
+              .lookupBoolean(SettingLibrary.TNT_IGNITION,
                   player,
                   event.getTargetBlock()
                       .getLocation()
@@ -1144,7 +1185,7 @@ public final class DynamicSettingListeners {
                   .equals(BlockTypes.TNT)
                   && !Nope.getInstance()
                   .getHostTree()
-                  .lookup(SettingLibrary.TNT_PLACEMENT,
+                  .lookupBoolean(SettingLibrary.TNT_PLACEMENT,
                       player,
                       trans.getFinal()
                           .getLocation()
@@ -1158,7 +1199,7 @@ public final class DynamicSettingListeners {
           ConstructEntityEvent.Post.class,
           (event) -> {
             if (event.getTargetEntity().getType().equals(EntityTypes.PRIMED_TNT)) {
-              if (!Nope.getInstance().getHostTree().lookup(SettingLibrary.TNT_IGNITION,
+              if (!Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.TNT_IGNITION,
                   event.getCause().first(User.class).orElseGet(() -> {
                         if (event.getContext().get(EventContextKeys.OWNER).isPresent()) {
                           return event.getContext().get(EventContextKeys.OWNER).get();
@@ -1200,13 +1241,13 @@ public final class DynamicSettingListeners {
                       teleportEvent ->
                           !Nope.getInstance()
                               .getHostTree()
-                              .lookup(SettingLibrary.CHORUS_FRUIT_TELEPORT,
+                              .lookupBoolean(SettingLibrary.CHORUS_FRUIT_TELEPORT,
                                   player.get(),
                                   teleportEvent.getFromTransform().getLocation())
                               ||
                               !Nope.getInstance()
                                   .getHostTree()
-                                  .lookup(SettingLibrary.CHORUS_FRUIT_TELEPORT,
+                                  .lookupBoolean(SettingLibrary.CHORUS_FRUIT_TELEPORT,
                                       player.get(),
                                       teleportEvent.getToTransform().getLocation()),
                       10000);
@@ -1222,13 +1263,11 @@ public final class DynamicSettingListeners {
               .isPresent()
               &&
               (!Nope.getInstance()
-                  .getHostTree()
-                  .lookup(SettingLibrary.USE_NAME_TAG,
-                      player,
-                      player.getLocation())
+                  .getPlayerMovementHandler()
+                  .lookupBoolean(SettingLibrary.USE_NAME_TAG, player)
                   || !Nope.getInstance()
                   .getHostTree()
-                  .lookup(SettingLibrary.USE_NAME_TAG,
+                  .lookupBoolean(SettingLibrary.USE_NAME_TAG,
                       player,
                       event.getTargetEntity().getLocation())));
   @DynamicSettingListener
@@ -1256,7 +1295,8 @@ public final class DynamicSettingListeners {
                     .getType())) {
                   return;
                 }
-                if (!Nope.getInstance().getHostTree().lookupAnonymous(SettingLibrary.WATER_GRIEF,
+                if (!Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.WATER_GRIEF,
+                    null,
                     transaction.getFinal().getLocation().orElseThrow(Extra.noLocation(
                         SettingLibrary.WATER_GRIEF,
                         ChangeBlockEvent.Break.class,
@@ -1282,7 +1322,8 @@ public final class DynamicSettingListeners {
                     .getType()
                     .equals(BlockTypes.FLOWING_WATER)) {
                   if (!Nope.getInstance().getHostTree()
-                      .lookupAnonymous(SettingLibrary.WATER_FLOW,
+                      .lookupBoolean(SettingLibrary.WATER_FLOW,
+                          null,
                           transaction.getFinal().getLocation()
                               .orElseThrow(Extra.noLocation(SettingLibrary.WATER_FLOW,
                                   ChangeBlockEvent.class,
@@ -1325,7 +1366,7 @@ public final class DynamicSettingListeners {
           InteractBlockEvent.Secondary.class,
           (event, player) -> CHEST_TYPES.contains(event.getTargetBlock().getState().getType())
               &&
-              !Nope.getInstance().getHostTree().lookup(SettingLibrary.CHEST_ACCESS,
+              !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.CHEST_ACCESS,
                   player,
                   event.getTargetBlock().getLocation()
                       .orElseThrow(Extra.noLocation(SettingLibrary.CHEST_ACCESS,
@@ -1346,10 +1387,9 @@ public final class DynamicSettingListeners {
           InteractEntityEvent.Primary.class,
           (event, player) -> VEHICLES.contains(event.getTargetEntity().getType())
               &&
-              (!Nope.getInstance().getHostTree().lookup(SettingLibrary.VEHICLE_DESTROY,
-                  player,
-                  player.getLocation())
-                  || !Nope.getInstance().getHostTree().lookup(SettingLibrary.VEHICLE_DESTROY,
+              (!Nope.getInstance().getPlayerMovementHandler()
+                  .lookupBoolean(SettingLibrary.VEHICLE_DESTROY, player)
+                  || !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.VEHICLE_DESTROY,
                   player,
                   event.getTargetEntity().getLocation())));
   @DynamicSettingListener
@@ -1360,35 +1400,65 @@ public final class DynamicSettingListeners {
           (event, player) -> event.getEntities().stream().anyMatch(spawned ->
               VEHICLES.contains(spawned.getType())
                   &&
-                  (!Nope.getInstance().getHostTree().lookup(SettingLibrary.VEHICLE_PLACE,
-                      player,
-                      player.getLocation())
-                      || !Nope.getInstance().getHostTree().lookup(SettingLibrary.VEHICLE_PLACE,
+                  (!Nope.getInstance().getPlayerMovementHandler()
+                      .lookupBoolean(SettingLibrary.VEHICLE_PLACE, player)
+                      || !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.VEHICLE_PLACE,
                       player,
                       spawned.getLocation()))));
 
+  /**
+   * The listeners annotated with {@link DynamicSettingListener}, by each of their keys.
+   */
+  private static Map<SettingKey<?>, List<SettingListener<?>>> listenersByKey = null;
+  /**
+   * The host tree whose assignments currently drive the registration of listeners.
+   */
+  private static HostTree subscribedHostTree = null;
+
   private DynamicSettingListeners() {
   }
 
   /**
    * Get all {@link SettingListener}s in the class that are
-   * annotated with {@link DynamicSettingListener} and attempt
-   * to register it using its {@link SettingListener#registerIfNecessary()}
-   * method.
+   * annotated with {@link DynamicSettingListener} and register or unregister
+   * each using its {@link SettingListener#updateRegistration()} method.
+   * From then on, each listener is registered and unregistered automatically
+   * as its keys are assigned and unassigned in the current host tree,
+   * so this only needs to be called again when the host tree is replaced.
    */
   public static void register() {
-    Arrays.stream(DynamicSettingListeners.class.getDeclaredFields())
-        .filter(field -> Modifier.isStatic(field.getModifiers()))
-        .filter(field -> SettingListener.class.isAssignableFrom(field.getType()))
-        .filter(field -> Arrays.stream(field.getAnnotations()).anyMatch(annotation ->
-            annotation instanceof DynamicSettingListener))
-        .forEach(field -> {
-          try {
-            ((SettingListener<?>) field.get(null)).registerIfNecessary();
-          } catch (IllegalAccessException e) {
-            e.printStackTrace();
-          }
-        });
+    if (listenersByKey == null) {
+      listenersByKey = Maps.newHashMap();
+      Arrays.stream(DynamicSettingListeners.class.getDeclaredFields())
+          .filter(field -> Modifier.isStatic(field.getModifiers()))
+          .filter(field -> SettingListener.class.isAssignableFrom(field.getType()))
+          .filter(field -> Arrays.stream(field.getAnnotations()).anyMatch(annotation ->
+              annotation instanceof DynamicSettingListener))
+          .forEach(field -> {
+            try {
+              SettingListener<?> listener = (SettingListener<?>) field.get(null);
+              listener.getKeys().forEach(key ->
+                  listenersByKey.computeIfAbsent(key, k -> new LinkedList<>()).add(listener));
+            } catch (IllegalAccessException e) {
+              e.printStackTrace();
+            }
+          });
+    }
+
+    HostTree hostTree = Nope.getInstance().getHostTree();
+    if (hostTree != subscribedHostTree) {
+      hostTree.subscribeToAssignments(key -> {
+        if (Nope.getInstance().getHostTree() == hostTree) {
+          listenersByKey.getOrDefault(key, Collections.emptyList())
+              .forEach(SettingListener::updateRegistration);
+        }
+      });
+      subscribedHostTree = hostTree;
+    }
+    listenersByKey.values().stream()
+        .flatMap(List::stream)
+        .distinct()
+        .forEach(SettingListener::updateRegistration);
   }
 
   static void printEvent(Event event) {
@@ -1422,7 +1492,7 @@ public final class DynamicSettingListeners {
       }
       return !Nope.getInstance()
           .getHostTree()
-          .lookup(key,
+          .lookupBoolean(key,
               (source instanceof Player)
                   ? (Player) source
                   :
@@ -1432,7 +1502,7 @@ public final class DynamicSettingListeners {
               source.getLocation())
           || !Nope.getInstance()
           .getHostTree()
-          .lookup(key,
+          .lookupBoolean(key,
               (sink instanceof Player)
                   ? (Player) sink
                   :
@@ -1443,6 +1513,51 @@ public final class DynamicSettingListeners {
     };
   }
 
+  /**
+   * Look up a setting at all the locations of one event, like
+   * {@link HostTree#lookupAll(SettingKey, User, List)}. If no zone which
+   * assigns the setting intersects the bounding box of the locations,
+   * every location resolves to the same world or global value,
+   * which is then only looked up once.
+   *
+   * @param key       the setting key
+   * @param user      the subject to check for the setting, or null to ignore targets
+   * @param locations the locations
+   * @param <V>       the type of value to retrieve
+   * @return the values, in the same order as the locations
+   */
+  private static <V> List<V> lookupEvent(SettingKey<V> key,
+                                         @Nullable User user,
+                                         List<Location<World>> locations) {
+    HostTree hostTree = Nope.getInstance().getHostTree();
+    if (locations.size() <= 1) {
+      return hostTree.lookupAll(key, user, locations);
+    }
+    World world = locations.get(0).getExtent();
+    int minX = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    int minZ = Integer.MAX_VALUE;
+    int maxZ = Integer.MIN_VALUE;
+    for (Location<World> location : locations) {
+      if (!location.getExtent().getUniqueId().equals(world.getUniqueId())) {
+        return hostTree.lookupAll(key, user, locations);
+      }
+      minX = Math.min(minX, location.getBlockX());
+      maxX = Math.max(maxX, location.getBlockX());
+      minY = Math.min(minY, location.getBlockY());
+      maxY = Math.max(maxY, location.getBlockY());
+      minZ = Math.min(minZ, location.getBlockZ());
+      maxZ = Math.max(maxZ, location.getBlockZ());
+    }
+    if (hostTree.getWorldHost(world.getUniqueId()) == null
+        || hostTree.isAssigned(key, world.getUniqueId(), new Cuboid(minX, maxX, minY, maxY, minZ, maxZ))) {
+      return hostTree.lookupAll(key, user, locations);
+    }
+    return Collections.nCopies(locations.size(), hostTree.lookup(key, user, locations.get(0)));
+  }
+
   private static <T extends SpawnEntityEvent> Predicate<T> spawnEntityCanceler(
       SettingKey<Boolean> settingKey,
       Class<? extends Entity> deniedType) {
@@ -1450,7 +1565,7 @@ public final class DynamicSettingListeners {
         (deniedType.isInstance(entity))
             && !Nope.getInstance()
             .getHostTree()
-            .lookup(settingKey,
+            .lookupBoolean(settingKey,
                 event.getCause().first(Player.class).orElse(null),
                 entity.getLocation()));
   }
@@ -1465,7 +1580,8 @@ public final class DynamicSettingListeners {
             trans.getFinal().getState().getType().equals(last))
         .anyMatch(trans -> !Nope.getInstance()
             .getHostTree()
-            .lookupAnonymous(key,
+            .lookupBoolean(key,
+                null,
                 trans.getFinal().getLocation().orElseThrow(Extra.noLocation(key,
                     ChangeBlockEvent.class,
                     null))));
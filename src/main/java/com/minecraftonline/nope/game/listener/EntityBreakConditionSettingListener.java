@@ -43,7 +43,7 @@ class EntityBreakConditionSettingListener
         event -> {
           for (Entity entity : event.getCause().allOf(Entity.class)) {
             if (entity.getType().equals(entityType)) {
-              if (!Nope.getInstance().getHostTree().lookupAnonymous(key, entity.getLocation())) {
+              if (!Nope.getInstance().getHostTree().lookupBoolean(key, null, entity.getLocation())) {
                 return true;
               }
               event.getTransactions()
@@ -52,7 +52,7 @@ class EntityBreakConditionSettingListener
                   .forEach(transaction ->
                       transaction.setValid(Nope.getInstance()
                           .getHostTree()
-                          .lookupAnonymous(key, transaction.getFinal()
+                          .lookupBoolean(key, null, transaction.getFinal()
                               .getLocation()
                               .orElseThrow(Extra.noLocation(key,
                                   ChangeBlockEvent.Break.class,
@@ -67,28 +67,40 @@ class SettingListener<E extends Event> implements EventListener<E> {
   }
 
   /**
-   * Register if this SettingKey is currently relevant on the server.
-   * It is relevant if this SettingKey has been assigned to a value,
-   * any of its ancestors have been assigned to a value,
+   * Get the keys which make this listener relevant.
+   *
+   * @return the keys
+   */
+  @Nonnull
+  public final Collection<SettingKey<?>> getKeys() {
+    return keys;
+  }
+
+  /**
+   * Register if any SettingKey of this listener is currently relevant on the server,
+   * or unregister if none is anymore.
+   * A SettingKey is relevant if it has been assigned to a value
    * or its default value provides unnatural changes to the behavior
    * of the game.
    */
-  public final void registerIfNecessary() {
-    if (this.registered) {
-      return;
-    }
-    boolean assigned;
+  public final void updateRegistration() {
+    boolean necessary = false;
     for (SettingKey<?> key : keys) {
-      assigned = Nope.getInstance().getHostTree().isAssigned(key);
-      if (key.isUnnaturalDefault() || assigned) {
-        Sponge.getEventManager().registerListener(Nope.getInstance(),
-            eventClass,
-            Order.EARLY,
-            listener);
-        this.registered = true;
-        return;
+      if (key.isUnnaturalDefault() || Nope.getInstance().getHostTree().isAssigned(key)) {
+        necessary = true;
+        break;
       }
     }
+    if (necessary && !this.registered) {
+      Sponge.getEventManager().registerListener(Nope.getInstance(),
+          eventClass,
+          Order.EARLY,
+          listener);
+      this.registered = true;
+    } else if (!necessary && this.registered) {
+      Sponge.getEventManager().unregisterListeners(listener);
+      this.registered = false;
+    }
   }
 
 }
@@ -99,7 +99,7 @@ public final class StaticSettingListeners {
           }
         }
         if (current.get().getVehicle().isPresent()
-            && !Nope.getInstance().getHostTree().lookup(SettingLibrary.RIDE,
+            && !Nope.getInstance().getHostTree().lookupBoolean(SettingLibrary.RIDE,
             (Player) current.get(),
             current.get().getLocation())) {
           current.get().setVehicle(null);
@@ -116,6 +116,17 @@ public final class StaticSettingListeners {
    */
   @Listener(order = Order.EARLY)
   public void onTeleport(MoveEntityEvent.Teleport event, @First Player player) {
+    // Teleports are not always checked against hosts, so forget the permissions
+    //  and find the contexts again once the player has arrived
+    Sponge.getScheduler().createTaskBuilder()
+        .delayTicks(1)
+        .execute(() -> {
+          Nope.getInstance().getPermissionCache().invalidate(player.getUniqueId());
+          if (player.isOnline()) {
+            Nope.getInstance().getZoneContextCalculator().refresh(player);
+          }
+        })
+        .submit(Nope.getInstance());
     // Duplicates -- Consecutive teleports from the same location
     if (cancellingDuplicatesSet.contains(player.getUniqueId())
         && lastTeleportFromLocations.containsKey(player.getUniqueId())
@@ -155,8 +166,8 @@ public final class StaticSettingListeners {
   public void onSendCommand(SendCommandEvent event, @First Player player) {
     String substring;
     for (String command : Nope.getInstance()
-        .getHostTree()
-        .lookup(SettingLibrary.MOVEMENT_COMMANDS, player, player.getLocation())) {
+        .getPlayerMovementHandler()
+        .lookup(SettingLibrary.MOVEMENT_COMMANDS, player)) {
       substring = event.getCommand().substring(0, Math.min(event.getCommand().length(), command.length()));
       if (substring.equalsIgnoreCase(command)) {
         Nope.getInstance()
@@ -175,12 +186,16 @@ public final class StaticSettingListeners {
   @Listener
   public void onJoin(ClientConnectionEvent.Join event) {
     Nope.getInstance().getPlayerMovementHandler().logIn(event.getTargetEntity().getUniqueId());
+    Nope.getInstance().getPermissionCache().invalidate(event.getTargetEntity().getUniqueId());
+    Nope.getInstance().getZoneContextCalculator().refresh(event.getTargetEntity());
   }
 
   @Listener
   public void onLeave(ClientConnectionEvent.Disconnect event) {
     Nope.getInstance().getCollisionHandler().logOut(event.getTargetEntity());
     Nope.getInstance().getPlayerMovementHandler().logOut(event.getTargetEntity().getUniqueId());
+    Nope.getInstance().getPermissionCache().invalidate(event.getTargetEntity().getUniqueId());
+    Nope.getInstance().getZoneContextCalculator().invalidate(event.getTargetEntity().getUniqueId());
   }
 
 }
@@ -25,20 +25,27 @@
 
 package com.minecraftonline.nope.game.movement;
 
+import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.minecraftonline.nope.Nope;
 import com.minecraftonline.nope.host.Host;
+import com.minecraftonline.nope.host.HostTree;
 import com.minecraftonline.nope.host.VolumeHost;
+import com.minecraftonline.nope.setting.SettingKey;
 import com.minecraftonline.nope.setting.SettingLibrary;
 import com.minecraftonline.nope.util.EffectsUtil;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.spongepowered.api.entity.Entity;
@@ -135,23 +142,30 @@ public class PlayerMovementHandler {
                                   Location<World> first,
                                   Location<World> last,
                                   boolean natural) {
-    List<Host> exiting = new LinkedList<>(Nope.getInstance()
-        .getHostTree()
-        .getContainingHosts(first));
-    List<Host> entering = new LinkedList<>(Nope.getInstance()
-        .getHostTree()
-        .getContainingHosts(last));
-    Set<Host> unchanged = Sets.newHashSet(exiting);
-    unchanged.retainAll(entering);
-    exiting.removeAll(unchanged);
-    entering.removeAll(unchanged);
+    PlayerMovementData data = movementDataMap.get(player.getUniqueId());
+    List<Host> firstHosts = findContainingHosts(data, first);
 
     /* Call it quits if we aren't moving anywhere special */
+    if (sameBlock(first, last)) {
+      track(player, data, first, firstHosts);
+      return false;
+    }
+    List<Host> lastHosts = findContainingHosts(data, last);
+    Set<Host> firstSet = Sets.newHashSet(firstHosts);
+    Set<Host> lastSet = Sets.newHashSet(lastHosts);
+    List<Host> exiting = firstHosts.stream()
+        .filter(host -> !lastSet.contains(host))
+        .collect(Collectors.toList());
+    List<Host> entering = lastHosts.stream()
+        .filter(host -> !firstSet.contains(host))
+        .collect(Collectors.toList());
     if (exiting.isEmpty() && entering.isEmpty()) {
+      track(player, data, last, lastHosts);
       return false;
     }
 
-    // Ignore sorting by priority for now, it doesn't really matter
+    /* Permissions of the player depend on the hosts containing them */
+    Nope.getInstance().getPermissionCache().invalidate(player.getUniqueId());
 
     boolean cancel = false;
     boolean visual = false;
@@ -161,12 +175,14 @@ public class PlayerMovementHandler {
     Text message;
     Text title;
     Text subtitle;
-    boolean expired = movementDataMap.get(player.getUniqueId()).getVisualsTimeStamp()
-        + MESSAGE_COOLDOWN_MILLISECONDS < System.currentTimeMillis();
-    String lastSentMessage = movementDataMap.get(player.getUniqueId()).getLastSentMessage();
+    /* Players without movement data have no cooldown on visuals */
+    boolean expired = data == null
+        || data.getVisualsTimeStamp() + MESSAGE_COOLDOWN_MILLISECONDS < System.currentTimeMillis();
+    String lastSentMessage = data == null ? null : data.getLastSentMessage();
+    boolean viewing = data != null && data.isViewing();
 
-    /* Exiting */
-    for (int i = exiting.size() - 1; i >= 0; i--) {
+    /* Exiting, in order of descending priority */
+    for (int i = 0; i < exiting.size(); i++) {
       movementData = exiting.get(i).getData(SettingLibrary.EXIT, player);
       if (movementData.equals(SettingLibrary.Movement.NONE)
           || (movementData.equals(SettingLibrary.Movement.NATURAL) && !natural)
@@ -181,9 +197,11 @@ public class PlayerMovementHandler {
         subtitle = exiting.get(i).getData(SettingLibrary.FAREWELL_SUBTITLE, player);
       }
 
-      if (!message.isEmpty() && (expired || !lastSentMessage.equals(message.toPlain()))) {
+      if (!message.isEmpty() && (expired || !message.toPlain().equals(lastSentMessage))) {
         player.sendMessage(message);
-        movementDataMap.get(player.getUniqueId()).setLastSentMessage(message.toPlain());
+        if (data != null) {
+          data.setLastSentMessage(message.toPlain());
+        }
         visual = true;
       }
       if (!title.isEmpty() || !subtitle.isEmpty()) {
@@ -191,7 +209,7 @@ public class PlayerMovementHandler {
         visual = true;
       }
 
-      if (exiting.get(i) instanceof VolumeHost && isHostViewer(player.getUniqueId()) && expired) {
+      if (exiting.get(i) instanceof VolumeHost && viewing && expired) {
         EffectsUtil.showVolume((VolumeHost) exiting.get(i), player, 5);
         visual = true;
       }
@@ -199,7 +217,7 @@ public class PlayerMovementHandler {
 
     /* Entering */
     if (!cancel) {  // Only entering if we could exit from before
-      for (int i = entering.size() - 1; i >= 0; i--) {
+      for (int i = 0; i < entering.size(); i++) {
         movementData = entering.get(i).getData(SettingLibrary.ENTRY, player);
         if (movementData.equals(SettingLibrary.Movement.NONE)
             || (movementData.equals(SettingLibrary.Movement.NATURAL) && !natural)
@@ -213,9 +231,11 @@ public class PlayerMovementHandler {
           title = entering.get(i).getData(SettingLibrary.GREETING_TITLE, player);
           subtitle = entering.get(i).getData(SettingLibrary.GREETING_SUBTITLE, player);
         }
-        if (!message.isEmpty() && (expired || !lastSentMessage.equals(message.toPlain()))) {
+        if (!message.isEmpty() && (expired || !message.toPlain().equals(lastSentMessage))) {
           player.sendMessage(message);
-          movementDataMap.get(player.getUniqueId()).setLastSentMessage(message.toPlain());
+          if (data != null) {
+            data.setLastSentMessage(message.toPlain());
+          }
           visual = true;
         }
         if (!title.isEmpty() || !subtitle.isEmpty()) {
@@ -223,8 +243,7 @@ public class PlayerMovementHandler {
           visual = true;
         }
 
-        if (entering.get(i) instanceof VolumeHost
-            && isHostViewer(player.getUniqueId()) && expired) {
+        if (entering.get(i) instanceof VolumeHost && viewing && expired) {
           EffectsUtil.showVolume((VolumeHost) entering.get(i), player, 5);
           visual = true;
         }
@@ -232,8 +251,8 @@ public class PlayerMovementHandler {
     }
 
     /* Update message time (for reduced spamming) */
-    if (visual) {
-      movementDataMap.get(player.getUniqueId()).setVisualsTimeStamp(System.currentTimeMillis());
+    if (visual && data != null) {
+      data.setVisualsTimeStamp(System.currentTimeMillis());
     }
 
     /* Perform cancellation behavior */
@@ -247,9 +266,143 @@ public class PlayerMovementHandler {
       vehicle.setTransform(player.getTransform());
     }
 
+    if (cancel) {
+      track(player, data, first, firstHosts);
+    } else {
+      track(player, data, last, lastHosts);
+    }
     return cancel;
   }
 
+  /**
+   * Get the hosts containing a player, in order of descending priority,
+   * if they are still those which were found when the player last moved.
+   * They are safe to read from any thread.
+   *
+   * @param player the player
+   * @return the hosts, or null if they are not known for the player's current location
+   */
+  @Nullable
+  public List<Host> getTrackedHosts(@Nonnull Player player) {
+    PlayerMovementData data = movementDataMap.get(player.getUniqueId());
+    if (data == null) {
+      return null;
+    }
+    TrackedHosts tracked = data.getTrackedHosts();
+    if (tracked == null || !tracked.isValidAt(player.getLocation())) {
+      return null;
+    }
+    return tracked.hosts;
+  }
+
+  /**
+   * Find the value of a setting for a player at their own location,
+   * using the hosts found when they last moved if possible.
+   *
+   * @param key    the setting key
+   * @param player the player
+   * @param <V>    the type of value to retrieve
+   * @return the assigned value corresponding to this setting key
+   */
+  public <V> V lookup(@Nonnull SettingKey<V> key, @Nonnull Player player) {
+    List<Host> hosts = getTrackedHosts(player);
+    if (hosts == null) {
+      return Nope.getInstance().getHostTree().lookup(key, player, player.getLocation());
+    }
+    return Nope.getInstance().getHostTree().lookup(key, player, hosts);
+  }
+
+  /**
+   * Find the value of a boolean setting for a player at their own location,
+   * using the hosts found when they last moved if possible.
+   *
+   * @param key    the setting key
+   * @param player the player
+   * @return the assigned value corresponding to this setting key
+   */
+  public boolean lookupBoolean(@Nonnull SettingKey<Boolean> key, @Nonnull Player player) {
+    List<Host> hosts = getTrackedHosts(player);
+    if (hosts == null) {
+      return Nope.getInstance().getHostTree().lookupBoolean(key, player, player.getLocation());
+    }
+    return Nope.getInstance().getHostTree().lookupBoolean(key, player, hosts);
+  }
+
+  /**
+   * Find the hosts containing a location in order of descending priority,
+   * reusing the hosts tracked for a player if they were found in the same block.
+   *
+   * @param data     the movement data of the player, or null if they have none
+   * @param location the location
+   * @return the hosts
+   */
+  private List<Host> findContainingHosts(@Nullable PlayerMovementData data, Location<World> location) {
+    if (data != null) {
+      TrackedHosts tracked = data.getTrackedHosts();
+      if (tracked != null && tracked.isValidAt(location)) {
+        return tracked.hosts;
+      }
+    }
+    List<Host> hosts = new ArrayList<>(Nope.getInstance().getHostTree().getContainingHosts(location));
+    hosts.sort(Comparator.comparingInt(host -> -host.getPriority()));
+    return Collections.unmodifiableList(hosts);
+  }
+
+  /**
+   * Track the hosts containing a player, unless they have no movement data,
+   * like players which never joined through a client connection.
+   * The permission contexts of the player are updated if the hosts changed.
+   *
+   * @param player   the player
+   * @param data     the movement data of the player, or null if they have none
+   * @param location the location of the player
+   * @param hosts    the hosts containing the location
+   */
+  private static void track(Player player,
+                            @Nullable PlayerMovementData data,
+                            Location<World> location,
+                            List<Host> hosts) {
+    TrackedHosts tracked = data == null ? null : data.getTrackedHosts();
+    if (tracked == null || !tracked.hosts.equals(hosts)) {
+      Nope.getInstance().getZoneContextCalculator().update(player.getUniqueId(), hosts);
+    }
+    if (data != null) {
+      data.setTrackedHosts(new TrackedHosts(location, hosts));
+    }
+  }
+
+  private static boolean sameBlock(Location<World> first, Location<World> last) {
+    return first.getExtent().getUniqueId().equals(last.getExtent().getUniqueId())
+        && first.getBlockPosition().equals(last.getBlockPosition());
+  }
+
+  /**
+   * The hosts containing a player, found in some block at some version of the hosts.
+   * This is immutable so that it may be read from other threads.
+   */
+  private static class TrackedHosts {
+    private final HostTree hostTree;
+    private final long version;
+    private final UUID worldUuid;
+    private final Vector3i block;
+    private final List<Host> hosts;
+
+    TrackedHosts(Location<World> location, List<Host> hosts) {
+      this.hostTree = Nope.getInstance().getHostTree();
+      this.version = hostTree.getVersion();
+      this.worldUuid = location.getExtent().getUniqueId();
+      this.block = location.getBlockPosition();
+      this.hosts = hosts;
+    }
+
+    boolean isValidAt(Location<World> location) {
+      return hostTree == Nope.getInstance().getHostTree()
+          && version == hostTree.getVersion()
+          && worldUuid.equals(location.getExtent().getUniqueId())
+          && block.equals(location.getBlockPosition());
+    }
+  }
+
   @Data
   @NoArgsConstructor
   private static class PlayerMovementData {
@@ -259,6 +412,7 @@ public class PlayerMovementHandler {
     private boolean nextTeleportVerificationNeeded = false;
     private Predicate<MoveEntityEvent.Teleport> nextTeleportCanceller = event -> false;
     private long nextTeleportCancellationExpiry = System.currentTimeMillis();
+    private volatile TrackedHosts trackedHosts = null;
   }
 
 }
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.minecraftonline.nope.host;
+
+import java.util.Collection;
+import java.util.function.IntFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A utility class which lists the hosts assigning a setting at a point in the order
+ * in which they dictate it, apart from how the hosts are stored, so that the listing
+ * can be checked against a sort of every host without a server.
+ */
+final class DictatorLookup {
+
+  private DictatorLookup() {
+  }
+
+  /**
+   * List the hosts which assign a setting at a point in the order in which they
+   * dictate the setting. The zones are found in order of descending priority
+   * by the index of the setting, so they are never sorted again here.
+   * Zones have non-negative priorities, so they precede the world host,
+   * which precedes the global host.
+   *
+   * @param zones      the zones which assign the setting at the point, in order of descending priority
+   * @param worldHost  the world host of the point if it assigns the setting, or else null
+   * @param globalHost the global host if it assigns the setting, or else null
+   * @param arrays     the constructor of arrays of hosts
+   * @param <H>        the host type
+   * @return the hosts
+   */
+  @Nonnull
+  static <H> H[] assigning(@Nonnull Collection<? extends H> zones,
+                           @Nullable H worldHost,
+                           @Nullable H globalHost,
+                           @Nonnull IntFunction<H[]> arrays) {
+    H[] hosts = arrays.apply(zones.size() + (worldHost == null ? 0 : 1) + (globalHost == null ? 0 : 1));
+    int count = 0;
+    for (H zone : zones) {
+      hosts[count++] = zone;
+    }
+    if (worldHost != null) {
+      hosts[count++] = worldHost;
+    }
+    if (globalHost != null) {
+      hosts[count] = globalHost;
+    }
+    return hosts;
+  }
+
+}
@@ -25,20 +25,25 @@
 
 package com.minecraftonline.nope.host;
 
+import com.google.common.collect.Sets;
 import com.google.gson.JsonElement;
 import com.minecraftonline.nope.Nope;
+import com.minecraftonline.nope.permission.PermissionCache;
 import com.minecraftonline.nope.setting.Setting;
 import com.minecraftonline.nope.setting.SettingKey;
 import com.minecraftonline.nope.setting.SettingLibrary;
 import com.minecraftonline.nope.setting.SettingMap;
 import com.minecraftonline.nope.setting.SettingValue;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import lombok.Getter;
 import lombok.Setter;
 import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.entity.living.player.User;
 import org.spongepowered.api.service.context.Context;
 import org.spongepowered.api.world.Locatable;
 import org.spongepowered.api.world.Location;
@@ -52,6 +57,14 @@ public abstract class Host {
   @Getter
   private final String name;
   private final SettingMap settings = new SettingMap();
+  /**
+   * The bits, by key ordinal, of the boolean settings assigned on this host.
+   */
+  private long[] booleansAssigned = new long[0];
+  /**
+   * The bits, by key ordinal, of the values of the boolean settings assigned on this host.
+   */
+  private long[] booleanValues = new long[0];
   @Getter
   private final Context context;
   @Setter
@@ -120,7 +133,14 @@ public abstract class Host {
   @Nonnull
   @SuppressWarnings("unchecked")
   public <A> Optional<A> put(SettingKey<A> key, SettingValue<A> value) {
-    return Optional.ofNullable((A) settings.put(Setting.of(key, value)));
+    boolean assigned = !settings.containsKey(key);
+    Optional<A> replaced = Optional.ofNullable((A) settings.put(Setting.of(key, value)));
+    updateBoolean(key);
+    if (assigned) {
+      assignmentChanged(key, true);
+    }
+    settingChanged(key);
+    return replaced;
   }
 
   /**
@@ -130,7 +150,12 @@ public abstract class Host {
    * @see SettingLibrary
    */
   public void putAll(SettingMap settings) {
+    Set<SettingKey<?>> assigned = Sets.newHashSet(settings.keySet());
+    assigned.removeAll(this.settings.keySet());
     this.settings.putAll(settings);
+    settings.keySet().forEach(this::updateBoolean);
+    assigned.forEach(key -> assignmentChanged(key, true));
+    settings.keySet().forEach(this::settingChanged);
   }
 
   /**
@@ -161,6 +186,53 @@ public abstract class Host {
     return settings;
   }
 
+  /**
+   * Get the data associated with a boolean setting on this host, regardless of the
+   * {@link com.minecraftonline.nope.setting.SettingValue.Target}.
+   * Unlike {@link #getData(SettingKey)}, this reads the value from bits
+   * without creating any objects.
+   *
+   * @param key the key for which to search
+   * @return the data, or the default data if the setting is not assigned
+   */
+  boolean getBoolean(SettingKey<Boolean> key) {
+    int ordinal = key.getOrdinal();
+    int word = ordinal >>> 6;
+    if (word >= booleansAssigned.length || (booleansAssigned[word] & (1L << ordinal)) == 0) {
+      return key.getDefaultData();
+    }
+    return (booleanValues[word] & (1L << ordinal)) != 0;
+  }
+
+  /**
+   * Copy the value of a setting into the boolean bits if it is a boolean setting.
+   *
+   * @param key the setting whose value changed
+   */
+  private void updateBoolean(SettingKey<?> key) {
+    if (!key.valueType().equals(Boolean.class)) {
+      return;
+    }
+    int ordinal = key.getOrdinal();
+    int word = ordinal >>> 6;
+    if (word >= booleansAssigned.length) {
+      booleansAssigned = Arrays.copyOf(booleansAssigned, word + 1);
+      booleanValues = Arrays.copyOf(booleanValues, word + 1);
+    }
+    SettingValue<?> value = settings.get(key);
+    if (value == null) {
+      booleansAssigned[word] &= ~(1L << ordinal);
+      booleanValues[word] &= ~(1L << ordinal);
+    } else {
+      booleansAssigned[word] |= 1L << ordinal;
+      if ((Boolean) value.getData()) {
+        booleanValues[word] |= 1L << ordinal;
+      } else {
+        booleanValues[word] &= ~(1L << ordinal);
+      }
+    }
+  }
+
   /**
    * Get the data associated on this host, regardless of the
    * {@link com.minecraftonline.nope.setting.SettingValue.Target}.
@@ -215,6 +287,20 @@ public abstract class Host {
     return this.settings.containsKey(setting);
   }
 
+  /**
+   * Check if a setting is assigned for this Host with a
+   * {@link com.minecraftonline.nope.setting.SettingValue.Target} which affects the user.
+   *
+   * @param key         the setting to check for
+   * @param user        the user to test for targeting, or null to ignore targets
+   * @param permissions the cache through which to check the permissions of the user
+   * @return true if this host dictates the setting for the user
+   */
+  boolean dictates(SettingKey<?> key, @Nullable User user, PermissionCache permissions) {
+    SettingValue<?> value = this.settings.get(key);
+    return value != null && (user == null || value.getTarget().test(key, user, permissions));
+  }
+
   /**
    * Removes any value associated with the given
    * {@link SettingKey} from this host.
@@ -224,14 +310,47 @@ public abstract class Host {
    */
   @Nullable
   public <A> SettingValue<A> remove(SettingKey<A> key) {
-    return settings.remove(key);
+    SettingValue<A> removed = settings.remove(key);
+    if (removed != null) {
+      updateBoolean(key);
+      assignmentChanged(key, false);
+      settingChanged(key);
+    }
+    return removed;
   }
 
   /**
    * Clears all the {@link Setting} assignments.
    */
   public void clear() {
+    Set<SettingKey<?>> cleared = Sets.newHashSet(this.settings.keySet());
     this.settings.clear();
+    this.booleansAssigned = new long[0];
+    this.booleanValues = new long[0];
+    cleared.forEach(key -> assignmentChanged(key, false));
+    cleared.forEach(this::settingChanged);
+  }
+
+  /**
+   * Called after a setting on this host is assigned where it had no value,
+   * or removed, before {@link #settingChanged(SettingKey)}.
+   *
+   * @param key      the setting
+   * @param assigned true if the setting now has a value, false if it was removed
+   */
+  protected void assignmentChanged(SettingKey<?> key, boolean assigned) {
+    // Nothing by default
+  }
+
+  /**
+   * Called after the value of a setting on this host is assigned,
+   * replaced or removed, so hosts may react to settings which
+   * configure the hosts themselves.
+   *
+   * @param key the setting whose value changed
+   */
+  protected void settingChanged(SettingKey<?> key) {
+    // Nothing by default
   }
 
   /**
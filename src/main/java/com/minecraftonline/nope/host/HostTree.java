@@ -28,10 +28,14 @@ package com.minecraftonline.nope.host;
 import com.flowpowered.math.vector.Vector3i;
 import com.minecraftonline.nope.setting.SettingKey;
 import com.minecraftonline.nope.setting.SettingLibrary;
+import com.minecraftonline.nope.structures.Volume;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.jetbrains.annotations.NotNull;
@@ -67,6 +71,14 @@ public interface HostTree {
   @Nonnull
   Host getGlobalHost();
 
+  /**
+   * Get the version of the hosts in this tree, which changes whenever
+   * the settings or priority of any host change or any zone is added or removed.
+   *
+   * @return the version
+   */
+  long getVersion();
+
   /**
    * Get the WorldHost associated with this World UUID.
    *
@@ -85,8 +97,36 @@ public interface HostTree {
   @Nullable
   VolumeHost getZone(final String name);
 
+  /**
+   * Get the host of the given name, which may be the global host,
+   * a world host or a zone. Names are not case-sensitive.
+   *
+   * @param name the name of the host
+   * @return the associated host, or null if none exists
+   */
+  @Nullable
+  Host getHost(final String name);
+
+  /**
+   * Get the names of all hosts, in lower case. The returned set
+   * is an unmodifiable view which changes as hosts are added and removed.
+   *
+   * @return the names of all hosts
+   */
+  @Nonnull
+  Set<String> getHostNames();
+
+  /**
+   * Count the global host, all world hosts, and all zones.
+   *
+   * @return the number of hosts
+   */
+  int getHostCount();
+
   /**
    * Get a map of all hosts keyed by their unique names.
+   * The map is a new copy, so prefer {@link #getHost(String)}
+   * when only some hosts are needed.
    *
    * @return a map of hosts
    */
@@ -104,6 +144,19 @@ public interface HostTree {
   @SuppressWarnings("unused")
   Collection<VolumeHost> getZones(final UUID worldUuid) throws IllegalArgumentException;
 
+  /**
+   * Get all the zones within the world of the given id which
+   * intersect the given volume, including zones which only share a face with it.
+   *
+   * @param worldUuid the UUID of the world
+   * @param volume    the volume
+   * @return the intersecting Zones
+   * @throws IllegalArgumentException if no world exists with that UUID
+   */
+  @Nonnull
+  Collection<VolumeHost> getIntersectingZones(final UUID worldUuid, @Nonnull final Volume volume)
+      throws IllegalArgumentException;
+
   /**
    * Add a zone to the HostTree with the given parameters.
    * The name must be unique. This method fails if it is called with a name
@@ -140,6 +193,17 @@ public interface HostTree {
   @Nonnull
   VolumeHost removeZone(final String name) throws IllegalArgumentException;
 
+  /**
+   * Begin a batch of zone additions and removals. Nothing is changed
+   * until {@link ZoneBatch#commit()} is called, at which point every
+   * operation is validated together and the zones of each world are
+   * re-indexed once.
+   *
+   * @return a new, empty batch
+   */
+  @Nonnull
+  ZoneBatch batch();
+
   /**
    * Check if a given world has a zone called a given name.
    *
@@ -165,6 +229,28 @@ public interface HostTree {
    */
   boolean isAssigned(final SettingKey<?> key);
 
+  /**
+   * Check if this SettingKey has been assigned to any zone in the world
+   * of the given id which intersects the given volume.
+   *
+   * @param key       the setting key
+   * @param worldUuid the UUID of the world
+   * @param volume    the volume
+   * @return true if an intersecting zone assigns this key, false if not
+   * @throws IllegalArgumentException if no world exists with that UUID
+   */
+  boolean isAssigned(final SettingKey<?> key, final UUID worldUuid, @Nonnull final Volume volume)
+      throws IllegalArgumentException;
+
+  /**
+   * Subscribe to changes of whether setting keys are assigned to any host,
+   * as given by {@link #isAssigned(SettingKey)}. The subscriber is given each key
+   * once it is assigned to its first host or removed from its last.
+   *
+   * @param subscriber the subscriber
+   */
+  void subscribeToAssignments(@Nonnull final Consumer<SettingKey<?>> subscriber);
+
   /**
    * Determines if a SettingKey is redundant. That is, see if a setting key
    * is set to the same value as a Host such that the host has a greater
@@ -210,6 +296,73 @@ public interface HostTree {
   <V> V lookupAnonymous(@Nonnull final SettingKey<V> key,
                         @Nonnull final Location<World> location);
 
+  /**
+   * Find the value of a boolean setting key dependent on whether
+   * this location is inside a host, such as a Zone or a World,
+   * and whether the subject is affected. This is the same as
+   * {@link #lookup(SettingKey, User, Location)} but creates no objects
+   * for the value, so it should be preferred for boolean settings.
+   *
+   * @param key      the setting key, obtained from the SettingLibrary
+   * @param user     the subject to check for the setting, or null to ignore targets
+   * @param location the location in the world to check for the setting
+   * @return the assigned value corresponding to this setting key
+   * @see SettingLibrary
+   */
+  boolean lookupBoolean(@Nonnull final SettingKey<Boolean> key,
+                        @Nullable final User user,
+                        @Nonnull final Location<World> location);
+
+  /**
+   * Find the value corresponding to this setting key among the hosts containing
+   * some location, which have already been found with
+   * {@link #getContainingHosts(Location)}, so that the location is not searched again.
+   *
+   * @param key   the setting key, obtained from the SettingLibrary
+   * @param user  the subject to check for the setting, or null to ignore targets
+   * @param hosts all the hosts containing the location, in order of descending priority
+   * @param <V>   the type of value to retrieve
+   * @return the assigned value corresponding to this setting key
+   * @see SettingLibrary
+   */
+  <V> V lookup(@Nonnull final SettingKey<V> key,
+               @Nullable final User user,
+               @Nonnull final List<Host> hosts);
+
+  /**
+   * Find the value of a boolean setting key among the hosts containing some location,
+   * like {@link #lookup(SettingKey, User, List)}, without creating any objects
+   * for the value.
+   *
+   * @param key   the setting key, obtained from the SettingLibrary
+   * @param user  the subject to check for the setting, or null to ignore targets
+   * @param hosts all the hosts containing the location, in order of descending priority
+   * @return the assigned value corresponding to this setting key
+   * @see SettingLibrary
+   */
+  boolean lookupBoolean(@Nonnull final SettingKey<Boolean> key,
+                        @Nullable final User user,
+                        @Nonnull final List<Host> hosts);
+
+  /**
+   * Find the values corresponding to this setting key at many locations at once,
+   * as if {@link #lookup(SettingKey, User, Location)} were called for each of them.
+   * The world and the hosts which assign the key are only resolved again
+   * when they differ from those of the previous location, so locations
+   * which lie near each other, like the blocks of one event, share most of the work.
+   *
+   * @param key       the setting key, obtained from the SettingLibrary
+   * @param user      the subject to check for the setting, or null to ignore targets
+   * @param locations the locations in the world to check for the setting
+   * @param <V>       the type of value to retrieve
+   * @return the assigned values, in the same order as the locations
+   * @see SettingLibrary
+   */
+  @Nonnull
+  <V> List<V> lookupAll(@Nonnull final SettingKey<V> key,
+                        @Nullable final User user,
+                        @Nonnull final List<Location<World>> locations);
+
   /**
    * Find the appropriate host corresponding to this setting key dependent on whether
    * this location is inside the host, such as a Zone or a World,
@@ -240,4 +393,97 @@ public interface HostTree {
                                @Nullable final User user,
                                @Nonnull final Location<World> location);
 
+  /**
+   * Find the hosts which dictate each of several setting keys at this location,
+   * as if {@link #lookupDictator(SettingKey, User, Location)} were called for each of them.
+   * The world of the location is only found once, and the hosts assigning each key
+   * come from the index and cache of that key, so no other hosts are ever walked.
+   *
+   * @param keys     the setting keys, obtained from the SettingLibrary
+   * @param user     the subject to check for the settings, or null to ignore targets
+   * @param location the location in the world to check for the settings
+   * @return the resolved dictators of the keys
+   * @see SettingLibrary
+   */
+  @Nonnull
+  Resolution resolve(@Nonnull final Set<SettingKey<?>> keys,
+                     @Nullable final User user,
+                     @Nonnull final Location<World> location);
+
+  /**
+   * The dictating hosts of a set of setting keys at one location,
+   * as found by {@link #resolve(Set, User, Location)}.
+   */
+  interface Resolution {
+
+    /**
+     * Get the host which dictates a resolved key.
+     *
+     * @param key the setting key
+     * @return the relevant host, or null if no host dictates this setting
+     * @throws IllegalArgumentException if the key was not resolved
+     */
+    @Nullable
+    Host getDictator(@Nonnull final SettingKey<?> key) throws IllegalArgumentException;
+
+    /**
+     * Get the value of a resolved key, which is the default value
+     * of the key if no host dictates it.
+     *
+     * @param key the setting key
+     * @param <V> the type of value to retrieve
+     * @return the assigned value corresponding to this setting key
+     * @throws IllegalArgumentException if the key was not resolved
+     */
+    <V> V getData(@Nonnull final SettingKey<V> key) throws IllegalArgumentException;
+
+  }
+
+  /**
+   * A transactional group of zone additions and removals.
+   * Either every operation is applied or none is.
+   */
+  interface ZoneBatch {
+
+    /**
+     * Queue the addition of a zone.
+     *
+     * @param name      the unique name of this zone
+     * @param worldUuid the uuid of the world in which this zone resides
+     * @param pos1      a point which defines this zone
+     * @param pos2      another point which defines this zone
+     * @param priority  a priority level
+     * @return this batch
+     * @see HostTree#addZone(String, UUID, Vector3i, Vector3i, int)
+     */
+    @Nonnull
+    ZoneBatch addZone(@NotNull final String name,
+                      @NotNull final UUID worldUuid,
+                      @NotNull final Vector3i pos1,
+                      @NotNull final Vector3i pos2,
+                      int priority);
+
+    /**
+     * Queue the removal of a zone. A zone may be removed and added
+     * again under the same name in one batch.
+     *
+     * @param name the name of the zone which to remove
+     * @return this batch
+     * @see HostTree#removeZone(String)
+     */
+    @Nonnull
+    ZoneBatch removeZone(final String name);
+
+    /**
+     * Validate and apply every queued operation.
+     *
+     * @return the added zones, in the order in which they were queued
+     * @throws IllegalArgumentException if any operation would lead to an invalid
+     *                                  HostTree state, in which case nothing is changed
+     */
+    @Nonnull
+    List<VolumeHost> commit() throws IllegalArgumentException;
+
+  }
+
 }
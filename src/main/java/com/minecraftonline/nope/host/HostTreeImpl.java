@@ -32,33 +32,43 @@ import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.minecraftonline.nope.Nope;
+import com.minecraftonline.nope.permission.PermissionCache;
 import com.minecraftonline.nope.setting.Setting;
 import com.minecraftonline.nope.setting.SettingKey;
 import com.minecraftonline.nope.setting.SettingLibrary;
 import com.minecraftonline.nope.setting.SettingValue;
-import com.minecraftonline.nope.structures.FlexibleHashQueueVolumeTree;
+import com.minecraftonline.nope.structures.CachingVolumeMap;
+import com.minecraftonline.nope.structures.CellDecomposition;
+import com.minecraftonline.nope.structures.LinearVolumeMap;
+import com.minecraftonline.nope.structures.Volume;
+import com.minecraftonline.nope.structures.VolumeMap;
+import com.minecraftonline.nope.structures.VolumeMapType;
+import com.minecraftonline.nope.structures.VolumeProfile;
 import com.minecraftonline.nope.structures.VolumeTree;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
 import org.spongepowered.api.Sponge;
@@ -76,13 +86,49 @@ import org.spongepowered.api.world.storage.WorldProperties;
  */
 public final class HostTreeImpl implements HostTree {
 
+  /**
+   * The order in which every index finds the zones containing a point.
+   */
+  private static final Comparator<Zone> DESCENDING_PRIORITY =
+      Comparator.comparingInt(zone -> -zone.getPriority());
+
+  /**
+   * The number of ticks to wait after the zones of a world change before compiling
+   * them into cells, so that a burst of changes is only compiled once.
+   */
+  private static final int CELL_COMPILE_DELAY_TICKS = 20;
+
+  /**
+   * The greatest number of disjoint cuboids per zone into which the
+   * zones of a world may be divided when compiling them into cells.
+   */
+  private static final int MAX_CELL_CUBOIDS_PER_ZONE = 256;
+
+  /**
+   * The number of entries in the cache of lookups.
+   */
+  private static final int LOOKUP_CACHE_CAPACITY = 1 << 14;
+
   private final HashMap<UUID, WorldHost> worldHosts = Maps.newHashMap();
   private final Map<String, UUID> zoneToWorld = Maps.newHashMap();
+  private final Map<String, Host> hostsByName = Maps.newHashMap();
+  /**
+   * The number of hosts in this tree which assign each setting.
+   * Settings which no host assigns have no count.
+   */
+  private final Map<SettingKey<?>, Integer> assignmentCounts = Maps.newHashMap();
+  private final List<Consumer<SettingKey<?>>> assignmentSubscribers = new LinkedList<>();
   private final Storage storage;
   private final String globalHostName;
   private final Function<String, String> worldNameConverter;
   private final String zoneNameRegex;
+  private final PermissionCache permissionCache;
   private GlobalHost globalHost;
+  private final LookupCache<SettingKey<?>, Host> lookupCache = new LookupCache<>(LOOKUP_CACHE_CAPACITY);
+  /**
+   * The version of the hosts, which is only bumped on the server thread.
+   */
+  private volatile long version = 0;
 
   /**
    * Default constructor.
@@ -92,17 +138,21 @@ public final class HostTreeImpl implements HostTree {
    * @param worldNameConverter the converter with which to create the world host names
    * @param zoneNameRegex      the allowed regex for added zones, which should ensure
    *                           no conflicts with global or world hosts
+   * @param permissionCache    the cache through which to check the permissions of targeted users
    */
   public HostTreeImpl(@Nonnull Storage storage,
                       @Nonnull String globalHostName,
                       @Nonnull Function<String, String> worldNameConverter,
-                      @Nonnull String zoneNameRegex) {
+                      @Nonnull String zoneNameRegex,
+                      @Nonnull PermissionCache permissionCache) {
     this.storage = storage;
     this.globalHostName = globalHostName;
     this.worldNameConverter = worldNameConverter;
     this.zoneNameRegex = zoneNameRegex;
+    this.permissionCache = permissionCache;
 
     this.globalHost = new GlobalHost();
+    indexHost(globalHost);
   }
 
   @Nullable
@@ -174,13 +224,20 @@ public final class HostTreeImpl implements HostTree {
     } catch (IOException e) {
       throw new IOException("Nope's WorldHosts could not be read.", e);
     }
+    worldHosts.values().forEach(WorldHost::updateSplitStrategy);
+    indexHost(globalHost);
+    worldHosts.values().forEach(this::indexHost);
+    assignAll(globalHost);
+    worldHosts.values().forEach(this::assignAll);
 
     // Read Zones
+    Collection<Zone> zones;
     try {
-      storage.readZones(location, worldHosts.values(), new ZoneSerializer()).forEach(this::addZone);
+      zones = storage.readZones(location, worldHosts.values(), new ZoneSerializer());
     } catch (IOException e) {
       throw new IOException("Nope's Zones could not be read.", e);
     }
+    addZones(zones);
 
   }
 
@@ -223,6 +280,11 @@ public final class HostTreeImpl implements HostTree {
     return globalHost;
   }
 
+  @Override
+  public long getVersion() {
+    return version;
+  }
+
   @Nullable
   @Override
   public WorldHost getWorldHost(final UUID worldUuid) {
@@ -239,18 +301,92 @@ public final class HostTreeImpl implements HostTree {
     return worldHosts.get(worldUuid).getZoneTree().get(name.toLowerCase());
   }
 
+  @Nullable
+  @Override
+  public Host getHost(final String name) {
+    return hostsByName.get(name.toLowerCase());
+  }
+
+  @Nonnull
+  @Override
+  public Set<String> getHostNames() {
+    return Collections.unmodifiableSet(hostsByName.keySet());
+  }
+
+  @Override
+  public int getHostCount() {
+    return hostsByName.size();
+  }
+
   @Nonnull
   @Override
   public Map<String, Host> getHosts() {
     Map<String, Host> hosts = Maps.newHashMap();
-    hosts.put(this.globalHost.getName(), this.globalHost);
-    this.worldHosts.values().forEach(worldHost -> {
-      hosts.put(worldHost.getName(), worldHost);
-      worldHost.getZoneTree().volumes().forEach(zone -> hosts.put(zone.getName(), zone));
-    });
+    hostsByName.values().forEach(host -> hosts.put(host.getName(), host));
     return hosts;
   }
 
+  @Override
+  public void subscribeToAssignments(@Nonnull Consumer<SettingKey<?>> subscriber) {
+    assignmentSubscribers.add(subscriber);
+  }
+
+  /**
+   * Count a new assignment of a setting by a host in this tree.
+   *
+   * @param key the setting
+   */
+  private void assign(SettingKey<?> key) {
+    if (assignmentCounts.merge(key, 1, Integer::sum) == 1) {
+      assignmentSubscribers.forEach(subscriber -> subscriber.accept(key));
+    }
+  }
+
+  /**
+   * Uncount an assignment of a setting by a host in this tree.
+   *
+   * @param key the setting
+   */
+  private void unassign(SettingKey<?> key) {
+    Integer count = assignmentCounts.get(key);
+    if (count == null) {
+      return;
+    }
+    if (count == 1) {
+      assignmentCounts.remove(key);
+      assignmentSubscribers.forEach(subscriber -> subscriber.accept(key));
+    } else {
+      assignmentCounts.put(key, count - 1);
+    }
+  }
+
+  /**
+   * Count every setting assigned by a host which is added to this tree.
+   *
+   * @param host the host
+   */
+  private void assignAll(Host host) {
+    host.getAll().keySet().forEach(this::assign);
+  }
+
+  /**
+   * Uncount every setting assigned by a host which is removed from this tree.
+   *
+   * @param host the host
+   */
+  private void unassignAll(Host host) {
+    host.getAll().keySet().forEach(this::unassign);
+  }
+
+  /**
+   * Add a host to the index of hosts by name.
+   *
+   * @param host the host
+   */
+  private void indexHost(Host host) {
+    hostsByName.put(host.getName().toLowerCase(), host);
+  }
+
   @Nonnull
   @Override
   public Collection<VolumeHost> getZones(final UUID worldUuid) throws IllegalArgumentException {
@@ -262,6 +398,19 @@ public final class HostTreeImpl implements HostTree {
         .orElseThrow(() -> new IllegalArgumentException("Invalid world uuid: " + worldUuid));
   }
 
+  @Nonnull
+  @Override
+  public Collection<VolumeHost> getIntersectingZones(final UUID worldUuid,
+                                                     @Nonnull final Volume volume)
+      throws IllegalArgumentException {
+    return Optional.ofNullable(getWorldHost(worldUuid)).map(worldHost ->
+        worldHost.getZoneTree().intersecting(volume)
+            .stream()
+            .map(zone -> (VolumeHost) zone)
+            .collect(Collectors.toList()))
+        .orElseThrow(() -> new IllegalArgumentException("Invalid world uuid: " + worldUuid));
+  }
+
   @Nullable
   @Override
   public Zone addZone(@NotNull final String name,
@@ -269,7 +418,7 @@ public final class HostTreeImpl implements HostTree {
                       @NotNull final Vector3i pos1,
                       @NotNull final Vector3i pos2,
                       int priority) {
-    if (getHosts().size() >= Nope.MAX_HOST_COUNT) {
+    if (getHostCount() >= Nope.MAX_HOST_COUNT) {
       return null;  // Too many
     }
     Zone zone = new Zone(worldUuid, name, pos1, pos2);
@@ -279,29 +428,82 @@ public final class HostTreeImpl implements HostTree {
   }
 
   private void addZone(Zone zone) {
-    if (getHosts().size() >= Nope.MAX_HOST_COUNT) {
+    if (getHostCount() >= Nope.MAX_HOST_COUNT) {
       return;  // Too many
     }
-    if (!Pattern.matches(zoneNameRegex, zone.getName())) {
+    validateZoneName(zone.getName(), false);
+    WorldHost worldHost = worldHosts.get(zone.getWorldUuid());
+    worldHost.getZoneTree().add(zone.getName(), zone);  // Should return null
+    worldHost.indexSettings(zone);
+    zoneToWorld.put(zone.getName(), zone.getWorldUuid());
+    indexHost(zone);
+    assignAll(zone);
+    worldHost.zonesChanged();
+  }
+
+  /**
+   * Add many zones at once, like when loading from storage.
+   * All names are validated before any zone is added and
+   * the index of each world is built exactly once.
+   *
+   * @param zones the zones to add
+   */
+  private void addZones(Collection<Zone> zones) {
+    int capacity = Nope.MAX_HOST_COUNT - getHostCount();
+    Set<String> names = new HashSet<>();
+    Map<UUID, Map<String, Zone>> zonesByWorld = Maps.newHashMap();
+    for (Zone zone : zones) {
+      if (names.size() >= capacity) {
+        break;  // Too many
+      }
+      validateZoneName(zone.getName(), false);
+      if (!names.add(zone.getName())) {
+        throw new IllegalArgumentException(String.format(
+            "Zone insertion failed because name %s is used more than once",
+            zone.getName()));
+      }
+      zonesByWorld.computeIfAbsent(zone.getWorldUuid(), uuid -> Maps.newHashMap())
+          .put(zone.getName(), zone);
+    }
+    worldHosts.forEach((worldUuid, worldHost) -> {
+      Map<String, Zone> worldZones = zonesByWorld.getOrDefault(worldUuid, Collections.emptyMap());
+      worldHost.addZones(worldZones);
+      worldZones.keySet().forEach(name -> zoneToWorld.put(name, worldUuid));
+      worldZones.values().forEach(this::indexHost);
+      worldZones.values().forEach(this::assignAll);
+    });
+  }
+
+  /**
+   * Check that a name may be given to a new zone.
+   *
+   * @param name     the name of the new zone
+   * @param replaced true if an existing zone of the same name is being removed
+   * @throws IllegalArgumentException if the name is not allowed or already in use
+   */
+  private void validateZoneName(String name, boolean replaced) throws IllegalArgumentException {
+    if (!Pattern.matches(zoneNameRegex, name)) {
       throw new IllegalArgumentException(String.format(
           "Zone insertion failed because the format of name %s is not allowed",
-          zone.getName()));
+          name));
     }
-    Zone other = getZone(zone.getName());
-    if (other != null) {
+    Zone other = getZone(name);
+    if (other != null && !replaced) {
       throw new IllegalArgumentException(String.format(
           "Zone insertion failed because name %s already exists (in world \"%s\")",
-          zone.getName(),
+          name,
           Sponge.getServer()
               .getAllWorldProperties()
               .stream().filter(prop -> prop.getUniqueId().equals(other.getWorldUuid()))
               .findFirst().map(WorldProperties::getWorldName)
               .orElse("unknown")));
     }
-    worldHosts.get(zone.getWorldUuid())
-        .getZoneTree()
-        .add(zone.getName(), zone);  // Should return null
-    zoneToWorld.put(zone.getName(), zone.getWorldUuid());
+  }
+
+  @Nonnull
+  @Override
+  public ZoneBatch batch() {
+    return new ZoneBatchImpl();
   }
 
   /* ======= */
@@ -311,10 +513,9 @@ public final class HostTreeImpl implements HostTree {
   private Optional<Zone> findIntersectingZoneWithSamePriority(final UUID worldUuid,
                                                               final Zone zone) {
     return worldHosts.get(worldUuid).getZoneTree()
-        .volumes()
+        .intersecting(zone)
         .stream()
         .filter(other -> other != zone
-            && zone.intersects(other)
             && zone.getPriority() == other.getPriority())
         .findAny();
   }
@@ -329,7 +530,12 @@ public final class HostTreeImpl implements HostTree {
     }
     WorldHost worldHost = worldHosts.get(zoneToWorld.get(name.toLowerCase()));
     zoneToWorld.remove(name.toLowerCase());
-    return Objects.requireNonNull(worldHost.getZoneTree().remove(name.toLowerCase()));
+    hostsByName.remove(name.toLowerCase());
+    Zone removed = Objects.requireNonNull(worldHost.getZoneTree().remove(name.toLowerCase()));
+    unassignAll(removed);
+    worldHost.unindexSettings(removed);
+    worldHost.zonesChanged();
+    return removed;
   }
 
   @Override
@@ -379,19 +585,11 @@ public final class HostTreeImpl implements HostTree {
 
     // Calculate all zones that encapsulate this one
     assert zone.getWorldUuid() != null;
-    containers.addAll(getContainingHosts(new Location<>(Sponge.getServer()
-        .getWorld(zone.getWorldUuid())
-        .orElseThrow(() -> new RuntimeException("Could not find world")),
-        zone.getMinX(),
-        zone.getMinY(),
-        zone.getMinZ())));
-    containers.remove(zone);  // Don't keep the one that we're looking with
-    containers.retainAll(getContainingHosts(new Location<>(Sponge.getServer()
-        .getWorld(zone.getWorldUuid())
-        .orElseThrow(() -> new RuntimeException("Could not find world")),
-        zone.getMaxX(),
-        zone.getMaxY(),
-        zone.getMaxZ())));
+    worldHosts.get(zone.getWorldUuid()).getZoneTree()
+        .intersecting(zone)
+        .stream()
+        .filter(other -> other != zone && other.contains(zone))
+        .forEach(containers::add);
 
     // Add global and world hosts
     containers.add(globalHost);
@@ -401,7 +599,17 @@ public final class HostTreeImpl implements HostTree {
 
   @Override
   public boolean isAssigned(SettingKey<?> key) {
-    return getHosts().values().stream().anyMatch(host -> host.get(key).isPresent());
+    return assignmentCounts.containsKey(key);
+  }
+
+  @Override
+  public boolean isAssigned(SettingKey<?> key, UUID worldUuid, @Nonnull Volume volume)
+      throws IllegalArgumentException {
+    return Optional.ofNullable(getWorldHost(worldUuid))
+        .map(worldHost -> Optional.ofNullable(worldHost.getSettingIndex(key))
+            .map(index -> index.anyIntersecting(volume))
+            .orElse(false))
+        .orElseThrow(() -> new IllegalArgumentException("Invalid world uuid: " + worldUuid));
   }
 
   @Override
@@ -423,64 +631,192 @@ public final class HostTreeImpl implements HostTree {
     return lookup(key, null, location);
   }
 
+  @Override
+  public boolean lookupBoolean(@Nonnull SettingKey<Boolean> key,
+                               @Nullable User user,
+                               @Nonnull Location<World> location) {
+    Host dictator = lookupDictator(key, user, location);
+    if (dictator == null) {
+      return key.getDefaultData();
+    } else {
+      return dictator.getBoolean(key);
+    }
+  }
+
+  @Override
+  public <V> V lookup(@Nonnull SettingKey<V> key,
+                      @Nullable User user,
+                      @Nonnull List<Host> hosts) {
+    for (Host host : hosts) {
+      if (host.dictates(key, user, permissionCache)) {
+        return host.get(key).orElseThrow(() ->
+            new RuntimeException("There was an error looking up a Nope setting key")).getData();
+      }
+    }
+    return key.getDefaultData();
+  }
+
+  @Override
+  public boolean lookupBoolean(@Nonnull SettingKey<Boolean> key,
+                               @Nullable User user,
+                               @Nonnull List<Host> hosts) {
+    for (Host host : hosts) {
+      if (host.dictates(key, user, permissionCache)) {
+        return host.getBoolean(key);
+      }
+    }
+    return key.getDefaultData();
+  }
+
+  @Nonnull
+  @Override
+  public <V> List<V> lookupAll(@Nonnull SettingKey<V> key,
+                               @Nullable User user,
+                               @Nonnull List<Location<World>> locations) {
+    List<V> values = new ArrayList<>(locations.size());
+    UUID worldUuid = null;
+    WorldHost worldHost = null;
+    Host[] previousHosts = null;
+    V previousValue = null;
+    for (Location<World> location : locations) {
+      if (!location.getExtent().getUniqueId().equals(worldUuid)) {
+        worldUuid = location.getExtent().getUniqueId();
+        worldHost = worldHosts.get(worldUuid);
+        previousHosts = null;
+        if (worldHost == null) {
+          // Every location of a world without a host resolves like the first
+          previousValue = lookup(key, user, location);
+        }
+      }
+      if (worldHost != null) {
+        Host[] hosts = findCachedAssigning(worldHost,
+            key,
+            location.getBlockX(),
+            location.getBlockY(),
+            location.getBlockZ());
+        // Points with the same hosts assigning the key resolve to the same value
+        if (!sameHosts(hosts, previousHosts)) {
+          previousValue = lookup(key, user, Arrays.asList(hosts));
+          previousHosts = hosts;
+        }
+      }
+      values.add(previousValue);
+    }
+    return values;
+  }
+
+  private static boolean sameHosts(Host[] hosts, @Nullable Host[] other) {
+    if (hosts == other) {
+      return true;
+    }
+    if (other == null || hosts.length != other.length) {
+      return false;
+    }
+    for (int i = 0; i < hosts.length; i++) {
+      if (hosts[i] != other[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Nullable
   @Override
   public Host lookupDictator(@Nonnull SettingKey<?> key,
                              @Nullable User user,
                              @Nonnull Location<World> location) {
-    /* Collect all hosts */
-    LinkedList<Host> hosts = new LinkedList<>();
+    return findDictator(worldHosts.get(location.getExtent().getUniqueId()),
+        key,
+        user,
+        location.getBlockX(),
+        location.getBlockY(),
+        location.getBlockZ());
+  }
 
-    /* Add global */
-    if (globalHost.has(key)) {
-      hosts.addFirst(globalHost);
+  /**
+   * Find the host which dictates a setting for a user at a point of a world.
+   *
+   * @param worldHost the world host of the point, or null if it has none
+   * @param key       the setting
+   * @param user      the user, or null to ignore targets
+   * @param x         x value
+   * @param y         y value
+   * @param z         z value
+   * @return the dictating host, or null if none exists
+   */
+  @Nullable
+  private Host findDictator(@Nullable WorldHost worldHost,
+                            SettingKey<?> key,
+                            @Nullable User user,
+                            int x,
+                            int y,
+                            int z) {
+    if (worldHost == null) {
+      return globalHost.dictates(key, user, permissionCache) ? globalHost : null;
     }
-
-    /* Add world */
-    Optional<WorldHost> worldHost = worldHosts.values()
-        .stream()
-        .filter(host -> host.encompasses(location))
-        .findAny();
-    if (worldHost.isPresent()) {
-      if (worldHost.get().has(key)) {
-        hosts.addFirst(worldHost.get());
-      }
-
-      /* Add zones */
-      worldHost.get().getZoneTree()
-          .containersOf(location.getBlockX(),
-              location.getBlockY(),
-              location.getBlockZ())
-          .stream().filter(host -> host.has(key))
-          .forEach(hosts::addFirst);
-    }
-
-    /* Choose a data structure that will optimize searching for highest priority matching */
-    Queue<Host> hostQueue;
-    Comparator<Host> descending = (h1, h2) -> Integer.compare(h2.getPriority(), h1.getPriority());
-    /*  */
-    if (hosts.size() > 10) {
-      hostQueue = new PriorityQueue<>(hosts.size(), descending);
-      hostQueue.addAll(hosts);
-    } else {
-      hostQueue = new LinkedList<>(hosts);
-      ((LinkedList<Host>) hostQueue).sort(descending);
+    for (Host host : findCachedAssigning(worldHost, key, x, y, z)) {
+      if (user == null || host.dictates(key, user, permissionCache)) {
+        return host;
+      }
     }
+    return null;
+  }
 
-    Host dictator;
+  /**
+   * Find every host which assigns a setting at a point of a world,
+   * in order of descending priority, from the cache of lookups if possible.
+   *
+   * @param worldHost the world host of the point
+   * @param key       the setting
+   * @param x         x value
+   * @param y         y value
+   * @param z         z value
+   * @return the hosts
+   */
+  private Host[] findCachedAssigning(WorldHost worldHost, SettingKey<?> key, int x, int y, int z) {
+    long version = this.version;
+    Host[] hosts = lookupCache.get(worldHost, x, y, z, key, version);
+    if (hosts == null) {
+      hosts = findAssigning(worldHost, key, x, y, z);
+      lookupCache.put(worldHost, x, y, z, key, version, hosts);
+    }
+    return hosts;
+  }
 
-    while (hostQueue.peek() != null) {
-      dictator = hostQueue.remove();
-      if (!dictator.get(key).isPresent()) {
-        // This shouldn't happen because we previously found that this host has this setting
-        throw new RuntimeException("Error retrieving setting value");
-      }
-      if (user == null || dictator.get(key).get().getTarget().test(key, user)) {
-        return dictator;
-      }
+  /**
+   * Find every host which assigns a setting at a point of a world,
+   * in order of descending priority.
+   *
+   * @param worldHost the world host of the point
+   * @param key       the setting
+   * @param x         x value
+   * @param y         y value
+   * @param z         z value
+   * @return the hosts
+   */
+  private Host[] findAssigning(WorldHost worldHost, SettingKey<?> key, int x, int y, int z) {
+    /* Cells and indexes both find the zones in order of descending priority */
+    Collection<Zone> zones;
+    ZoneCells cells = worldHost.getCells();
+    if (cells != null) {
+      zones = Arrays.asList(cells.zonesOf(x, y, z, key));
+    } else {
+      /* Only zones which assign the key are indexed */
+      VolumeMap<String, Zone> index = worldHost.getSettingIndex(key);
+      zones = index == null ? Collections.emptyList() : index.containersOf(x, y, z);
     }
+    return DictatorLookup.assigning(zones,
+        worldHost.has(key) ? worldHost : null,
+        globalHost.has(key) ? globalHost : null,
+        Host[]::new);
+  }
 
-    return null;
+  /**
+   * Invalidate every cached lookup, after the settings,
+   * priority or volume of any host change.
+   */
+  private void mutated() {
+    version++;
   }
 
   @Nullable
@@ -491,6 +827,259 @@ public final class HostTreeImpl implements HostTree {
     return lookupDictator(key, null, location);
   }
 
+  @Nonnull
+  @Override
+  public Resolution resolve(@Nonnull Set<SettingKey<?>> keys,
+                            @Nullable User user,
+                            @Nonnull Location<World> location) {
+    WorldHost worldHost = worldHosts.get(location.getExtent().getUniqueId());
+    SettingKey<?>[] resolved = new SettingKey<?>[keys.size()];
+    Host[] dictators = new Host[keys.size()];
+    int i = 0;
+    for (SettingKey<?> key : keys) {
+      resolved[i] = key;
+      dictators[i] = findDictator(worldHost,
+          key,
+          user,
+          location.getBlockX(),
+          location.getBlockY(),
+          location.getBlockZ());
+      i++;
+    }
+    return new ResolutionImpl(resolved, dictators);
+  }
+
+  /**
+   * Implementation of a {@link Resolution} which stores the dictator of each key,
+   * or null for keys without one, at the same index as the key.
+   */
+  @AllArgsConstructor
+  private static class ResolutionImpl implements Resolution {
+
+    private final SettingKey<?>[] keys;
+    private final Host[] dictators;
+
+    @Nullable
+    @Override
+    public Host getDictator(@Nonnull SettingKey<?> key) throws IllegalArgumentException {
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] == key || keys[i].equals(key)) {
+          return dictators[i];
+        }
+      }
+      throw new IllegalArgumentException("The key " + key.getId() + " was not resolved");
+    }
+
+    @Override
+    public <V> V getData(@Nonnull SettingKey<V> key) throws IllegalArgumentException {
+      Host dictator = getDictator(key);
+      if (dictator == null) {
+        return key.getDefaultData();
+      } else {
+        return dictator.get(key).orElseThrow(() ->
+            new RuntimeException("There was an error looking up a Nope setting key")).getData();
+      }
+    }
+
+  }
+
+  /**
+   * Implementation of a {@link ZoneBatch} which validates every queued
+   * operation against the state of this tree before changing anything.
+   */
+  private class ZoneBatchImpl implements ZoneBatch {
+
+    private final Set<String> removals = new LinkedHashSet<>();
+    private final List<ZoneAddition> additions = new LinkedList<>();
+    private boolean committed = false;
+
+    @Nonnull
+    @Override
+    public ZoneBatch addZone(@NotNull String name,
+                             @NotNull UUID worldUuid,
+                             @NotNull Vector3i pos1,
+                             @NotNull Vector3i pos2,
+                             int priority) {
+      additions.add(new ZoneAddition(new Zone(worldUuid, name, pos1, pos2), priority));
+      return this;
+    }
+
+    @Nonnull
+    @Override
+    public ZoneBatch removeZone(String name) {
+      if (!removals.add(name.toLowerCase())) {
+        throw new IllegalArgumentException(String.format(
+            "Zone deletion failed because name %s is removed more than once",
+            name.toLowerCase()));
+      }
+      return this;
+    }
+
+    @Nonnull
+    @Override
+    public List<VolumeHost> commit() throws IllegalArgumentException {
+      if (committed) {
+        throw new IllegalStateException("This batch has already been committed");
+      }
+      committed = true;
+
+      /* Validate */
+      for (String name : removals) {
+        if (!hasZone(name)) {
+          throw new IllegalArgumentException(String.format(
+              "Zone deletion failed because name %s does not exist",
+              name));
+        }
+      }
+      if (getHostCount() - removals.size() + additions.size() > Nope.MAX_HOST_COUNT) {
+        throw new IllegalArgumentException("Zone insertion failed because there are too many hosts");
+      }
+      Set<String> names = new HashSet<>();
+      for (ZoneAddition addition : additions) {
+        String name = addition.zone.getName();
+        if (!worldHosts.containsKey(addition.zone.getWorldUuid())) {
+          throw new IllegalArgumentException(String.format(
+              "Zone insertion failed because no world exists with UUID %s",
+              addition.zone.getWorldUuid()));
+        }
+        validateZoneName(name, removals.contains(name));
+        if (!names.add(name)) {
+          throw new IllegalArgumentException(String.format(
+              "Zone insertion failed because name %s is used more than once",
+              name));
+        }
+        if (addition.priority < 0 || addition.priority > Nope.MAX_HOST_COUNT) {
+          throw new IllegalArgumentException(String.format(
+              "Zone insertion failed because priority %d is not allowed",
+              addition.priority));
+        }
+      }
+
+      /* Group by world */
+      Map<UUID, List<String>> removalsByWorld = Maps.newHashMap();
+      Map<UUID, Map<String, Zone>> additionsByWorld = Maps.newHashMap();
+      for (String name : removals) {
+        removalsByWorld.computeIfAbsent(zoneToWorld.remove(name), uuid -> new LinkedList<>())
+            .add(name);
+        hostsByName.remove(name);
+      }
+      for (ZoneAddition addition : additions) {
+        addition.zone.assignPriority(addition.priority);
+        additionsByWorld.computeIfAbsent(addition.zone.getWorldUuid(), uuid -> Maps.newHashMap())
+            .put(addition.zone.getName(), addition.zone);
+        zoneToWorld.put(addition.zone.getName(), addition.zone.getWorldUuid());
+        indexHost(addition.zone);
+      }
+
+      /* Apply, re-indexing each world once */
+      Set<UUID> worlds = new HashSet<>(removalsByWorld.keySet());
+      worlds.addAll(additionsByWorld.keySet());
+      for (UUID worldUuid : worlds) {
+        WorldHost worldHost = worldHosts.get(worldUuid);
+        List<String> worldRemovals = removalsByWorld.getOrDefault(worldUuid, Collections.emptyList());
+        Map<String, Zone> worldAdditions = additionsByWorld.getOrDefault(worldUuid,
+            Collections.emptyMap());
+        worldRemovals.forEach(name -> {
+          Zone removed = worldHost.getZoneTree().get(name);
+          worldHost.unindexSettings(removed);
+          unassignAll(removed);
+        });
+        worldHost.getZoneTree().update(worldRemovals, worldAdditions);
+        worldAdditions.values().forEach(worldHost::indexSettings);
+        worldAdditions.values().forEach(HostTreeImpl.this::assignAll);
+        worldHost.zonesChanged();
+      }
+
+      // Priority conflicts are resolved once the zones are in place so that conflicts
+      //  between zones of the same batch are resolved as well
+      List<VolumeHost> added = new LinkedList<>();
+      for (ZoneAddition addition : additions) {
+        addition.zone.makeWay();
+        added.add(addition.zone);
+      }
+      return added;
+    }
+  }
+
+  /**
+   * The zones of a world compiled into disjoint cells, where each cell
+   * holds, for every setting, the zones assigning it in order of descending
+   * priority. Looking up a setting at a point then only needs the cell
+   * of the point and the target test of the zones.
+   */
+  private static final class ZoneCells {
+
+    private static final Zone[] NO_ZONES = new Zone[0];
+
+    private final CellDecomposition<Zone> decomposition;
+    private final List<Map<SettingKey<?>, Zone[]>> zonesByCell;
+
+    private ZoneCells(CellDecomposition<Zone> decomposition,
+                      List<Map<SettingKey<?>, Zone[]>> zonesByCell) {
+      this.decomposition = decomposition;
+      this.zonesByCell = zonesByCell;
+    }
+
+    /**
+     * Compile zones into cells.
+     *
+     * @param zones      the zones
+     * @param keys       the settings assigned by each zone
+     * @param priorities the priority of each zone
+     * @param maxCuboids the greatest number of disjoint cuboids into which to divide space
+     * @return the cells, or null if more cuboids are needed
+     */
+    @Nullable
+    static ZoneCells compile(Collection<Zone> zones,
+                             Map<Zone, Set<SettingKey<?>>> keys,
+                             Map<Zone, Integer> priorities,
+                             int maxCuboids) {
+      CellDecomposition<Zone> decomposition = CellDecomposition.of(zones, maxCuboids);
+      if (decomposition == null) {
+        return null;
+      }
+      Comparator<Zone> descending = Comparator.comparingInt(zone -> -priorities.get(zone));
+      List<Map<SettingKey<?>, Zone[]>> zonesByCell = new ArrayList<>(decomposition.getCellCount());
+      for (int cell = 0; cell < decomposition.getCellCount(); cell++) {
+        Map<SettingKey<?>, List<Zone>> assigning = Maps.newHashMap();
+        for (Zone zone : decomposition.getVolumes(cell)) {
+          for (SettingKey<?> key : keys.get(zone)) {
+            assigning.computeIfAbsent(key, k -> new ArrayList<>()).add(zone);
+          }
+        }
+        Map<SettingKey<?>, Zone[]> resolved = Maps.newHashMapWithExpectedSize(assigning.size());
+        assigning.forEach((key, list) -> {
+          list.sort(descending);
+          resolved.put(key, list.toArray(NO_ZONES));
+        });
+        zonesByCell.add(resolved);
+      }
+      return new ZoneCells(decomposition, zonesByCell);
+    }
+
+    /**
+     * Get the zones at a point which assign a setting.
+     *
+     * @param x   x value
+     * @param y   y value
+     * @param z   z value
+     * @param key the setting
+     * @return the zones in order of descending priority
+     */
+    Zone[] zonesOf(int x, int y, int z, SettingKey<?> key) {
+      return zonesByCell.get(decomposition.cellOf(x, y, z)).getOrDefault(key, NO_ZONES);
+    }
+  }
+
+  /**
+   * A zone queued for addition in a {@link ZoneBatchImpl}.
+   */
+  @AllArgsConstructor
+  private static class ZoneAddition {
+    private final Zone zone;
+    private final int priority;
+  }
+
   /**
    * Storage for Nope Hosts.
    */
@@ -613,6 +1202,29 @@ public final class HostTreeImpl implements HostTree {
     public UUID getWorldUuid() {
       return null;
     }
+
+    @Override
+    protected void assignmentChanged(SettingKey<?> key, boolean assigned) {
+      if (globalHost == this) {
+        if (assigned) {
+          assign(key);
+        } else {
+          unassign(key);
+        }
+      }
+    }
+
+    @Override
+    protected void settingChanged(SettingKey<?> key) {
+      mutated();
+      if (key.equals(SettingLibrary.ZONE_TREE_SPLIT)) {
+        worldHosts.values().forEach(WorldHost::updateSplitStrategy);
+      } else if (key.equals(SettingLibrary.ZONE_INDEX)) {
+        worldHosts.values().forEach(WorldHost::indexTypeChanged);
+      } else if (key.equals(SettingLibrary.ZONE_CELLS)) {
+        worldHosts.values().forEach(WorldHost::cellsChanged);
+      }
+    }
   }
 
   /**
@@ -643,29 +1255,238 @@ public final class HostTreeImpl implements HostTree {
     @Getter
     private final UUID worldUuid;
     @Getter(AccessLevel.PUBLIC)
-    private final VolumeTree<String, Zone> zoneTree;
+    private volatile VolumeMap<String, Zone> zoneTree;
+    /**
+     * The number of zones when the type of index was last chosen.
+     */
+    private int indexedCount = 0;
+    /**
+     * For each setting, an index of only the zones of this world which assign it.
+     * Settings which no zone of this world assigns have no index.
+     */
+    private final Map<SettingKey<?>, VolumeMap<String, Zone>> settingIndexes = Maps.newHashMap();
+    /**
+     * The zones of this world compiled into cells, or null if compiling
+     * is disabled or the zones have changed since they were compiled.
+     */
+    private volatile ZoneCells cells = null;
+    /**
+     * The number of changes to the zones of this world, so compiled
+     * cells are discarded if the zones changed while compiling.
+     */
+    private long zoneVersion = 0;
+    private boolean cellsScheduled = false;
 
     WorldHost(String name, UUID worldUuid) {
       super(name, -1);
       int cacheSize = globalHost.getData(SettingLibrary.CACHE_SIZE);
       if (cacheSize < 0) {
         throw new RuntimeException("The cache size must be greater than 0");
-      } else if (cacheSize == 0) {
-        this.zoneTree = new VolumeTree<>();
-      } else {
-        FlexibleHashQueueVolumeTree<String, Zone> flexVolumeTree =
-            new FlexibleHashQueueVolumeTree<>(cacheSize);
-        Sponge.getScheduler().createTaskBuilder().async()
-            .interval(1, TimeUnit.SECONDS)
-            .execute(flexVolumeTree::trim)
-            .submit(Nope.getInstance());
-        this.zoneTree = flexVolumeTree;
       }
-
+      this.zoneTree = cached(new VolumeTree<>(VolumeTree.SplitStrategy.MEDIAN, DESCENDING_PRIORITY));
       this.worldUuid = worldUuid;
       setParent(globalHost);
     }
 
+    private VolumeMap<String, Zone> cached(VolumeMap<String, Zone> index) {
+      int cacheSize = globalHost.getData(SettingLibrary.CACHE_SIZE);
+      if (cacheSize == 0) {
+        return index;
+      }
+      return new CachingVolumeMap<>(index, Math.min(cacheSize, CachingVolumeMap.MAX_CAPACITY));
+    }
+
+    /**
+     * Get the map which indexes the zones, beneath any cache.
+     *
+     * @return the index
+     */
+    VolumeMap<String, Zone> getIndex() {
+      VolumeMap<String, Zone> index = zoneTree;
+      if (index instanceof CachingVolumeMap) {
+        return ((CachingVolumeMap<String, Zone>) index).getDelegate();
+      }
+      return index;
+    }
+
+    /**
+     * Get the index of only the zones of this world which assign a setting.
+     *
+     * @param key the setting
+     * @return the index, or null if no zone of this world assigns the setting
+     */
+    @Nullable
+    VolumeMap<String, Zone> getSettingIndex(SettingKey<?> key) {
+      return settingIndexes.get(key);
+    }
+
+    /**
+     * Add a zone of this world to the index of every setting it assigns,
+     * replacing it if it is already there.
+     *
+     * @param zone the zone
+     */
+    void indexSettings(Zone zone) {
+      zone.getAll().keySet().forEach(key -> indexSetting(zone, key));
+      cellsChanged();
+    }
+
+    /**
+     * Remove a zone from the index of every setting.
+     *
+     * @param zone the zone
+     */
+    void unindexSettings(Zone zone) {
+      settingIndexes.values().removeIf(index -> {
+        if (index.get(zone.getName()) == zone) {
+          index.remove(zone.getName());
+        }
+        return index.size() == 0;
+      });
+      cellsChanged();
+    }
+
+    /**
+     * Add a zone of this world to the index of a setting if
+     * it assigns the setting, or else remove it from that index.
+     *
+     * @param zone the zone
+     * @param key  the setting
+     */
+    void indexSetting(Zone zone, SettingKey<?> key) {
+      VolumeMap<String, Zone> index = settingIndexes.get(key);
+      if (zone.has(key)) {
+        if (index == null) {
+          index = createSettingIndex(1);
+          settingIndexes.put(key, index);
+        }
+        index.add(zone.getName(), zone);
+        if (index instanceof LinearVolumeMap && index.size() > VolumeProfile.LINEAR_MAX_COUNT) {
+          // The setting has outgrown a linear index
+          VolumeMap<String, Zone> replacement = createSettingIndex(index.size());
+          Map<String, Zone> zones = Maps.newHashMap();
+          for (String name : index.keySet()) {
+            zones.put(name, index.get(name));
+          }
+          replacement.addAll(zones);
+          settingIndexes.put(key, replacement);
+        }
+      } else if (index != null && index.get(zone.getName()) == zone) {
+        index.remove(zone.getName());
+        if (index.size() == 0) {
+          settingIndexes.remove(key);
+        }
+      }
+      cellsChanged();
+    }
+
+    /**
+     * Build the index of every setting from all the zones of this world at once.
+     */
+    void rebuildSettingIndexes() {
+      Map<SettingKey<?>, Map<String, Zone>> zonesBySetting = Maps.newHashMap();
+      for (Zone zone : getIndex().volumes()) {
+        for (SettingKey<?> key : zone.getAll().keySet()) {
+          zonesBySetting.computeIfAbsent(key, k -> Maps.newHashMap()).put(zone.getName(), zone);
+        }
+      }
+      settingIndexes.clear();
+      zonesBySetting.forEach((key, zones) -> {
+        VolumeMap<String, Zone> index = createSettingIndex(zones.size());
+        index.addAll(zones);
+        settingIndexes.put(key, index);
+      });
+      cellsChanged();
+    }
+
+    /**
+     * Get the zones of this world compiled into cells.
+     *
+     * @return the cells, or null if they are disabled or not compiled yet
+     */
+    @Nullable
+    ZoneCells getCells() {
+      return cells;
+    }
+
+    /**
+     * Discard the compiled cells after the zones of this world change, or the
+     * setting which enables them changes, and compile them again if enabled.
+     */
+    void cellsChanged() {
+      mutated();
+      zoneVersion++;
+      cells = null;
+      if (getWorldData(SettingLibrary.ZONE_CELLS) && !cellsScheduled) {
+        cellsScheduled = true;
+        Sponge.getScheduler().createTaskBuilder()
+            .delayTicks(CELL_COMPILE_DELAY_TICKS)
+            .execute(this::compileCells)
+            .submit(Nope.getInstance());
+      }
+    }
+
+    /**
+     * Compile the zones of this world into cells in the background. The zones
+     * and their settings are copied first, and the cells are only used
+     * if the zones have not changed again by the time they are compiled.
+     */
+    private void compileCells() {
+      cellsScheduled = false;
+      if (!getWorldData(SettingLibrary.ZONE_CELLS)) {
+        return;
+      }
+      long version = zoneVersion;
+      List<Zone> zones = new ArrayList<>(getIndex().volumes());
+      Map<Zone, Set<SettingKey<?>>> keys = Maps.newHashMap();
+      Map<Zone, Integer> priorities = Maps.newHashMap();
+      for (Zone zone : zones) {
+        keys.put(zone, new HashSet<>(zone.getAll().keySet()));
+        priorities.put(zone, zone.getPriority());
+      }
+      Sponge.getScheduler().createTaskBuilder()
+          .async()
+          .execute(() -> {
+            ZoneCells compiled = ZoneCells.compile(zones, keys, priorities,
+                MAX_CELL_CUBOIDS_PER_ZONE * Math.max(1, zones.size()));
+            Sponge.getScheduler().createTaskBuilder()
+                .execute(() -> {
+                  if (compiled == null) {
+                    Nope.getInstance().getLogger().warn(String.format(
+                        "Zones of world %s overlap too much to be compiled into cells",
+                        getName()));
+                  } else if (version == zoneVersion && getWorldData(SettingLibrary.ZONE_CELLS)) {
+                    cells = compiled;
+                  }
+                })
+                .submit(Nope.getInstance());
+          })
+          .submit(Nope.getInstance());
+    }
+
+    /**
+     * Create an empty index for the zones which assign some setting.
+     * A few zones are indexed linearly, unless a type of index is assigned,
+     * and more zones are indexed like all the zones of this world.
+     *
+     * @param count the number of zones which the index is for
+     * @return the index
+     */
+    private VolumeMap<String, Zone> createSettingIndex(int count) {
+      Optional<VolumeMapType> assigned = getWorldData(SettingLibrary.ZONE_INDEX).getType();
+      VolumeMapType type;
+      if (assigned.isPresent()) {
+        type = assigned.get();
+      } else if (count <= VolumeProfile.LINEAR_MAX_COUNT) {
+        type = VolumeMapType.LINEAR;
+      } else {
+        type = Optional.ofNullable(VolumeMapType.of(getIndex())).orElse(VolumeMapType.TREE);
+      }
+      VolumeMap<String, Zone> index = type.create(DESCENDING_PRIORITY);
+      applySplitStrategy(index);
+      return index;
+    }
+
     @Override
     public boolean encompasses(Location<World> spongeLocation) {
       return spongeLocation.getExtent().getUniqueId().equals(this.worldUuid);
@@ -676,6 +1497,139 @@ public final class HostTreeImpl implements HostTree {
       throw new UnsupportedOperationException("You cannot set the priority of a WorldHost!");
     }
 
+    @Override
+    protected void assignmentChanged(SettingKey<?> key, boolean assigned) {
+      if (worldHosts.get(worldUuid) == this) {
+        if (assigned) {
+          assign(key);
+        } else {
+          unassign(key);
+        }
+      }
+    }
+
+    @Override
+    protected void settingChanged(SettingKey<?> key) {
+      mutated();
+      if (key.equals(SettingLibrary.ZONE_TREE_SPLIT)) {
+        updateSplitStrategy();
+      } else if (key.equals(SettingLibrary.ZONE_INDEX)) {
+        indexTypeChanged();
+      } else if (key.equals(SettingLibrary.ZONE_CELLS)) {
+        cellsChanged();
+      }
+    }
+
+    /**
+     * Index the zones of this world, and the zones which assign
+     * each setting, again after the assigned type of index changes.
+     */
+    void indexTypeChanged() {
+      updateIndex();
+      rebuildSettingIndexes();
+    }
+
+    /**
+     * Get the data assigned to a setting on this world, or else globally.
+     *
+     * @param key the setting
+     * @param <A> the type of data
+     * @return the data
+     */
+    private <A> A getWorldData(SettingKey<A> key) {
+      return get(key).map(SettingValue::getData).orElse(globalHost.getData(key));
+    }
+
+    /**
+     * Divide the zones of this world with the strategy assigned
+     * on this world, or else the one assigned globally.
+     */
+    void updateSplitStrategy() {
+      applySplitStrategy(getIndex());
+      settingIndexes.values().forEach(this::applySplitStrategy);
+    }
+
+    private void applySplitStrategy(VolumeMap<String, Zone> index) {
+      if (index instanceof VolumeTree) {
+        ((VolumeTree<String, Zone>) index).setSplitStrategy(
+            getWorldData(SettingLibrary.ZONE_TREE_SPLIT));
+      }
+    }
+
+    /**
+     * Index the zones of this world with the type of index assigned
+     * on this world, or else the one assigned globally. If the type
+     * should be chosen automatically, the zones are measured to choose
+     * the type best suited to them.
+     */
+    void updateIndex() {
+      VolumeMap<String, Zone> index = getIndex();
+      Map<String, Zone> zones = Maps.newHashMap();
+      index.keySet().forEach(name -> zones.put(name, index.get(name)));
+      reindex(zones, VolumeMapType.of(index));
+    }
+
+    /**
+     * Add many zones to this world at once, like when loading from storage.
+     * The type of index is chosen for all the zones before any is indexed,
+     * so the zones, and the zones which assign each setting, are indexed once.
+     *
+     * @param zones the zones to add, by name
+     */
+    void addZones(Map<String, Zone> zones) {
+      VolumeMap<String, Zone> index = getIndex();
+      Map<String, Zone> all = Maps.newHashMap(zones);
+      index.keySet().forEach(name -> all.put(name, index.get(name)));
+      reindex(all, null);
+    }
+
+    /**
+     * Index some zones as all the zones of this world, unless the
+     * type of index chosen for them is the current type.
+     *
+     * @param zones   all the zones of this world, by name
+     * @param current the current type of index, or null to index the zones regardless
+     */
+    private void reindex(Map<String, Zone> zones, @Nullable VolumeMapType current) {
+      Optional<VolumeMapType> assigned = getWorldData(SettingLibrary.ZONE_INDEX).getType();
+      VolumeMapType type;
+      String reason;
+      if (assigned.isPresent()) {
+        type = assigned.get();
+        reason = "assigned by setting " + SettingLibrary.ZONE_INDEX.getId();
+      } else {
+        VolumeProfile profile = VolumeProfile.of(zones.values());
+        type = profile.recommend();
+        reason = profile.toString();
+      }
+      indexedCount = zones.size();
+      if (type == current) {
+        return;
+      }
+
+      VolumeMap<String, Zone> replacement = type.create(DESCENDING_PRIORITY);
+      applySplitStrategy(replacement);
+      replacement.addAll(zones);
+      this.zoneTree = cached(replacement);
+      rebuildSettingIndexes();
+      Nope.getInstance().getLogger().info(String.format("Zones of world %s are now indexed by %s (%s)",
+          getName(),
+          type.name().toLowerCase(),
+          reason));
+    }
+
+    /**
+     * Choose the type of index again if the number of zones
+     * has changed greatly since the type was last chosen.
+     */
+    void zonesChanged() {
+      int count = getIndex().size();
+      if (count > Math.max(2 * indexedCount, VolumeProfile.LINEAR_MAX_COUNT)
+          || count < indexedCount / 2) {
+        updateIndex();
+      }
+    }
+
   }
 
   /**
@@ -786,15 +1740,59 @@ public final class HostTreeImpl implements HostTree {
       return this.worldUuid;
     }
 
+    @Override
+    protected void assignmentChanged(SettingKey<?> key, boolean assigned) {
+      if (worldHosts.get(worldUuid).getZoneTree().get(getName()) == this) {
+        if (assigned) {
+          assign(key);
+        } else {
+          unassign(key);
+        }
+      }
+    }
+
+    @Override
+    protected void settingChanged(SettingKey<?> key) {
+      WorldHost worldHost = worldHosts.get(worldUuid);
+      if (worldHost.getZoneTree().get(getName()) == this) {
+        worldHost.indexSetting(this, key);
+      }
+    }
+
     @Override
     public void setPriority(int priority) throws IllegalArgumentException {
+      int previous = getPriority();
+      assignPriority(priority);
+      WorldHost worldHost = worldHosts.get(worldUuid);
+      if (priority != previous && worldHost.getZoneTree().get(getName()) == this) {
+        // Add this zone again so the indexes find it in its new order
+        worldHost.getZoneTree().add(getName(), this);
+        worldHost.indexSettings(this);
+      }
+      makeWay();
+    }
+
+    /**
+     * Set the priority of this zone without ordering it again in the indexes
+     * or making way for it, like before it is added to its world.
+     *
+     * @param priority the priority
+     * @throws IllegalArgumentException if the priority is not allowed
+     */
+    private void assignPriority(int priority) throws IllegalArgumentException {
       if (priority < 0) {
         throw new IllegalArgumentException("Cannot set a negative priority");
       }
       super.setPriority(priority);
+    }
+
+    /**
+     * Bump the priority level of an intersecting zone
+     * of the same priority to make way for this one.
+     */
+    private void makeWay() {
       Optional<Zone> intersection = findIntersectingZoneWithSamePriority(worldUuid, this);
-      // Bump the priority level of the intersecting zone to make way
-      intersection.ifPresent(zone -> zone.setPriority(priority + 1));
+      intersection.ifPresent(zone -> zone.setPriority(getPriority() + 1));
     }
   }
 
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.host;
+
+import com.minecraftonline.nope.structures.PackedPoints;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A direct-mapped cache of the hosts which assign a setting at a block of a world,
+ * in the order in which they dictate the setting, before targets are tested.
+ * Since targets are tested on the cached hosts at every lookup, the same
+ * entry serves every user.
+ *
+ * <p>Every entry is stamped with the version of the {@link HostTree} when its
+ * hosts were found, and an entry of any other version is treated as missing.
+ * The tree bumps its version whenever the settings, priority or volume of any
+ * host change, so nothing ever has to be removed from the cache.
+ *
+ * <p>Each slot holds an immutable entry, so concurrent lookups
+ * never observe an entry which is only partially written.
+ * Worlds and settings are told apart by identity.
+ *
+ * @param <K> the setting type
+ * @param <H> the host type
+ */
+final class LookupCache<K, H> {
+
+  private final Entry<K, H>[] entries;
+  private final int mask;
+
+  /**
+   * Default constructor.
+   *
+   * @param capacity the number of entries, which must be a power of two
+   */
+  @SuppressWarnings("unchecked")
+  LookupCache(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("The capacity of a lookup cache must be a power of two");
+    }
+    this.entries = (Entry<K, H>[]) new Entry[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Get the cached hosts which assign a setting at a block.
+   *
+   * @param world   the world host of the block
+   * @param x       x value
+   * @param y       y value
+   * @param z       z value
+   * @param key     the setting
+   * @param version the current version of the host tree
+   * @return the hosts, or null if they are not cached for this version
+   */
+  @Nullable
+  H[] get(@Nonnull H world, int x, int y, int z, @Nonnull K key, long version) {
+    if (!PackedPoints.isPackable(x, y, z)) {
+      return null;
+    }
+    long position = PackedPoints.pack(x, y, z);
+    Entry<K, H> entry = entries[slotOf(world, position, key)];
+    if (entry != null
+        && entry.version == version
+        && entry.position == position
+        && entry.key == key
+        && entry.world == world) {
+      return entry.hosts;
+    }
+    return null;
+  }
+
+  /**
+   * Cache the hosts which assign a setting at a block,
+   * replacing whatever else was cached in the same slot.
+   *
+   * @param world   the world host of the block
+   * @param x       x value
+   * @param y       y value
+   * @param z       z value
+   * @param key     the setting
+   * @param version the version of the host tree when the hosts were found
+   * @param hosts   the hosts, in the order in which they dictate the setting
+   */
+  void put(@Nonnull H world,
+           int x,
+           int y,
+           int z,
+           @Nonnull K key,
+           long version,
+           @Nonnull H[] hosts) {
+    if (!PackedPoints.isPackable(x, y, z)) {
+      return;
+    }
+    long position = PackedPoints.pack(x, y, z);
+    entries[slotOf(world, position, key)] = new Entry<>(world, position, key, version, hosts);
+  }
+
+  private int slotOf(H world, long position, K key) {
+    long hash = (position ^ ((long) System.identityHashCode(key) << 32) ^ System.identityHashCode(world))
+        * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  /**
+   * The hosts which assign one setting at one block.
+   */
+  private static final class Entry<K, H> {
+
+    private final H world;
+    private final long position;
+    private final K key;
+    private final long version;
+    private final H[] hosts;
+
+    private Entry(H world, long position, K key, long version, H[] hosts) {
+      this.world = world;
+      this.position = position;
+      this.key = key;
+      this.version = version;
+      this.hosts = hosts;
+    }
+  }
+
+}
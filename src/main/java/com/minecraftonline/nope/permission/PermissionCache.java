@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.permission;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import org.spongepowered.api.entity.living.player.User;
+
+/**
+ * A cache of the results of permission checks of users, so that settings
+ * which target permissions do not query the permission service on every lookup.
+ *
+ * <p>The permissions of a user are forgotten when they log in or out,
+ * when they move between hosts, which changes their contexts,
+ * and otherwise after a short time, since permission data may
+ * be changed by other plugins without notice. Expired permissions
+ * are removed from time to time, so users who are no longer checked,
+ * like offline users targeted by settings, are not remembered forever.
+ */
+public class PermissionCache {
+
+  /**
+   * The time for which the permissions of a user are remembered.
+   */
+  public static final long TIME_TO_LIVE_MILLISECONDS = 5000;
+
+  private final Map<UUID, UserPermissions> users = new ConcurrentHashMap<>();
+  private volatile long nextSweep = 0;
+
+  /**
+   * Check whether a user has a permission, using a remembered result if possible.
+   *
+   * @param user       the user
+   * @param permission the permission
+   * @return true if the user has the permission
+   */
+  public boolean hasPermission(@Nonnull User user, @Nonnull String permission) {
+    long now = System.currentTimeMillis();
+    UserPermissions permissions = users.get(user.getUniqueId());
+    if (permissions == null || permissions.expiry < now) {
+      if (now >= nextSweep) {
+        nextSweep = now + TIME_TO_LIVE_MILLISECONDS;
+        users.values().removeIf(expired -> expired.expiry < now);
+      }
+      permissions = new UserPermissions(now + TIME_TO_LIVE_MILLISECONDS);
+      users.put(user.getUniqueId(), permissions);
+    }
+    return permissions.results.computeIfAbsent(permission, user::hasPermission);
+  }
+
+  /**
+   * Forget the permissions of a user.
+   *
+   * @param userUuid the id of the user
+   */
+  public void invalidate(@Nonnull UUID userUuid) {
+    users.remove(userUuid);
+  }
+
+  /**
+   * Forget the permissions of all users.
+   */
+  public void invalidateAll() {
+    users.clear();
+  }
+
+  /**
+   * The remembered permissions of one user.
+   */
+  private static class UserPermissions {
+    private final long expiry;
+    private final Map<String, Boolean> results = new ConcurrentHashMap<>();
+
+    UserPermissions(long expiry) {
+      this.expiry = expiry;
+    }
+  }
+
+}
@@ -85,12 +85,36 @@ public abstract class SettingKey<T> {
   @Getter
   @Setter
   private boolean playerRestrictive = false;
+  /**
+   * The dense index of this key among all keys of the {@link SettingLibrary},
+   * which is assigned when the library is initialized.
+   */
+  private int ordinal = -1;
 
   protected SettingKey(String id, T defaultData) {
     this.id = id;
     this.defaultData = defaultData;
   }
 
+  /**
+   * Get the index of this key among all keys of the {@link SettingLibrary}.
+   * Ordinals start at zero and have no gaps, so they may index arrays.
+   *
+   * @return the ordinal
+   * @throws IllegalStateException if the SettingLibrary has not been initialized
+   */
+  public final int getOrdinal() throws IllegalStateException {
+    if (ordinal < 0) {
+      throw new IllegalStateException("The SettingLibrary must be initialized before the key "
+          + id + " is used");
+    }
+    return ordinal;
+  }
+
+  final void setOrdinal(int ordinal) {
+    this.ordinal = ordinal;
+  }
+
   /**
    * Convert some data into a Json structure.
    * Data must be of the type of this object's generic type.
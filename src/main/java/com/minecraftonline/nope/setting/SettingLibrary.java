@@ -34,6 +34,8 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.minecraftonline.nope.Nope;
+import com.minecraftonline.nope.structures.VolumeMapType;
+import com.minecraftonline.nope.structures.VolumeTree;
 import com.minecraftonline.nope.update.SettingUpdates;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
@@ -136,7 +138,8 @@ public final class SettingLibrary {
   @Blurb("Size of world block caches")
   @Description("This is the quantity of block locations to cache for each world. "
       + "Total memory is roughly this multiplied by 56 bytes, "
-      + "multiplied by the number of worlds. Set 0 to disable caching.")
+      + "multiplied by the number of worlds. Set 0 to disable caching. "
+      + "Sizes above 4194304 are treated as 4194304.")
   @Global
   public static final SettingKey<Integer> CACHE_SIZE = new PositiveIntegerSettingKey(
       "cache-size",
@@ -806,6 +809,32 @@ public final class SettingLibrary {
       "zombie-grief",
       true
   );
+  @Blurb("Zone cell compilation")
+  @Description("When enabled, the zones of a world are compiled in the background into disjoint cells "
+      + "whose settings are already resolved, which suits worlds whose zones rarely change. "
+      + "Set on a world to only affect that world.")
+  public static final SettingKey<Boolean> ZONE_CELLS = new BooleanSettingKey(
+      "zone-cells",
+      false
+  );
+  @Blurb("Zone index type")
+  @Description("The type of structure with which to find the zones of a world. "
+      + "Automatic measures the zones to choose a type whenever they are loaded "
+      + "or their number changes greatly. Set on a world to only affect that world.")
+  public static final SettingKey<ZoneIndex> ZONE_INDEX = new EnumSettingKey<>(
+      "zone-index",
+      ZoneIndex.AUTOMATIC,
+      ZoneIndex.class
+  );
+  @Blurb("Zone tree divider choice")
+  @Description("The strategy with which to divide the zones of a world to find them quickly. "
+      + "Median divides zones in half, and cost divides zones where queries "
+      + "are expected to check the fewest zones. Set on a world to only affect that world.")
+  public static final SettingKey<VolumeTree.SplitStrategy> ZONE_TREE_SPLIT = new EnumSettingKey<>(
+      "zone-tree-split",
+      VolumeTree.SplitStrategy.MEDIAN,
+      VolumeTree.SplitStrategy.class
+  );
   private static final HashMap<String, SettingKey<?>> settingMap = Maps.newHashMap();
 
   /**
@@ -858,6 +887,7 @@ public final class SettingLibrary {
             if (settingMap.put(key.getId(), key) != null) {
               throw new IllegalStateException("SettingKeys may not have the same id: " + key.getId());
             }
+            key.setOrdinal(settingMap.size() - 1);
             for (Annotation annotation : field.getAnnotations()) {
               if (annotation instanceof Description) {
                 key.setDescription(((Description) annotation).value());
@@ -1018,6 +1048,31 @@ public final class SettingLibrary {
     }
   }
 
+  /**
+   * Enumeration for all types of structures which may find the zones of a world.
+   */
+  public enum ZoneIndex {
+    AUTOMATIC(null),
+    LINEAR(VolumeMapType.LINEAR),
+    TREE(VolumeMapType.TREE),
+    CHUNK_GRID(VolumeMapType.CHUNK_GRID);
+
+    private final VolumeMapType type;
+
+    ZoneIndex(VolumeMapType type) {
+      this.type = type;
+    }
+
+    /**
+     * Get the type of structure to use.
+     *
+     * @return the type, or empty if it should be chosen automatically
+     */
+    public Optional<VolumeMapType> getType() {
+      return Optional.ofNullable(type);
+    }
+  }
+
   /**
    * A description of a {@link SettingKey}.
    */
@@ -25,9 +25,16 @@
 
 package com.minecraftonline.nope.setting;
 
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
+import com.google.common.collect.UnmodifiableIterator;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
@@ -37,29 +44,81 @@ import javax.annotation.Nonnull;
  * the static {@link SettingKey} associated with it.
  * These two types are combined into a {@link Setting} for ease of
  * retrieval and manipulation.
+ *
+ * <p>Values are stored by the {@link SettingKey#getOrdinal() ordinal} of their keys:
+ * a bitset marks which keys are present and the values of the present keys are
+ * packed in order of ordinal, so finding a value only counts the bits below its
+ * ordinal. The collections returned by {@link #keySet()}, {@link #values()}
+ * and {@link #entrySet()} are unmodifiable views of the arrays, so they
+ * reflect later changes to the map without copying anything.
  */
 public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
 
-  private final Map<SettingKey<?>, SettingValue<?>> data = Maps.newHashMap();
+  private static final long[] EMPTY_PRESENT = new long[0];
+  private static final SettingKey<?>[] EMPTY_KEYS = new SettingKey<?>[0];
+  private static final SettingValue<?>[] EMPTY_VALUES = new SettingValue<?>[0];
+
+  /**
+   * The bits of the ordinals of the present keys.
+   */
+  private long[] present = EMPTY_PRESENT;
+  /**
+   * The present keys, in order of ordinal.
+   */
+  private SettingKey<?>[] keys = EMPTY_KEYS;
+  /**
+   * The values of the present keys, in the same order.
+   */
+  private SettingValue<?>[] values = EMPTY_VALUES;
 
   @Override
   public int size() {
-    return data.size();
+    return keys.length;
   }
 
   @Override
   public boolean isEmpty() {
-    return data.isEmpty();
+    return keys.length == 0;
   }
 
   @Override
   public boolean containsKey(Object o) {
-    return data.containsKey(o);
+    return o instanceof SettingKey && isPresent(((SettingKey<?>) o).getOrdinal());
   }
 
   @Override
   public boolean containsValue(Object o) {
-    return data.containsValue(o);
+    return Arrays.asList(values).contains(o);
+  }
+
+  /**
+   * Check whether a key of the given ordinal is present.
+   *
+   * @param ordinal the ordinal of the key
+   * @return true if present
+   */
+  private boolean isPresent(int ordinal) {
+    int word = ordinal >>> 6;
+    return word < present.length && (present[word] & (1L << ordinal)) != 0;
+  }
+
+  /**
+   * Count the present keys with an ordinal less than the given one,
+   * which is the index of the key of the given ordinal if it is present.
+   *
+   * @param ordinal the ordinal of a key
+   * @return the number of present keys before it
+   */
+  private int rank(int ordinal) {
+    int word = ordinal >>> 6;
+    int rank = 0;
+    for (int i = 0; i < word && i < present.length; i++) {
+      rank += Long.bitCount(present[i]);
+    }
+    if (word < present.length) {
+      rank += Long.bitCount(present[word] & ((1L << ordinal) - 1));
+    }
+    return rank;
   }
 
   @Deprecated
@@ -82,7 +141,11 @@ public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
    */
   @SuppressWarnings("unchecked")
   public <T> SettingValue<T> get(SettingKey<T> key) {
-    SettingValue<?> val = data.get(key);
+    int ordinal = key.getOrdinal();
+    if (!isPresent(ordinal)) {
+      return null;
+    }
+    SettingValue<?> val = values[rank(ordinal)];
     try {
       return (SettingValue<T>) val;
     } catch (ClassCastException e) {
@@ -96,7 +159,69 @@ public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
     if (!key.valueType().equals(val.getData().getClass())) {
       throw illegalArguments(key, val);
     }
-    return data.put(key, val);
+    return putValue(key, val);
+  }
+
+  /**
+   * Store a value by the ordinal of its key.
+   *
+   * @param key the key
+   * @param val the value
+   * @return the value which was replaced, or null if the key was not present
+   */
+  private SettingValue<?> putValue(SettingKey<?> key, SettingValue<?> val) {
+    int ordinal = key.getOrdinal();
+    int index = rank(ordinal);
+    if (isPresent(ordinal)) {
+      SettingValue<?> replaced = values[index];
+      values[index] = val;
+      return replaced;
+    }
+
+    int word = ordinal >>> 6;
+    if (word >= present.length) {
+      present = Arrays.copyOf(present, word + 1);
+    }
+    present[word] |= 1L << ordinal;
+
+    /* Keep the arrays exactly sized, since maps are read far more than changed */
+    SettingKey<?>[] newKeys = new SettingKey<?>[keys.length + 1];
+    SettingValue<?>[] newValues = new SettingValue<?>[values.length + 1];
+    System.arraycopy(keys, 0, newKeys, 0, index);
+    System.arraycopy(values, 0, newValues, 0, index);
+    newKeys[index] = key;
+    newValues[index] = val;
+    System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+    System.arraycopy(values, index, newValues, index + 1, values.length - index);
+    keys = newKeys;
+    values = newValues;
+    return null;
+  }
+
+  /**
+   * Remove a value by the ordinal of its key.
+   *
+   * @param key the key
+   * @return the value which was removed, or null if the key was not present
+   */
+  private SettingValue<?> removeValue(SettingKey<?> key) {
+    int ordinal = key.getOrdinal();
+    if (!isPresent(ordinal)) {
+      return null;
+    }
+    int index = rank(ordinal);
+    SettingValue<?> removed = values[index];
+    present[ordinal >>> 6] &= ~(1L << ordinal);
+
+    SettingKey<?>[] newKeys = new SettingKey<?>[keys.length - 1];
+    SettingValue<?>[] newValues = new SettingValue<?>[values.length - 1];
+    System.arraycopy(keys, 0, newKeys, 0, index);
+    System.arraycopy(values, 0, newValues, 0, index);
+    System.arraycopy(keys, index + 1, newKeys, index, newKeys.length - index);
+    System.arraycopy(values, index + 1, newValues, index, newValues.length - index);
+    keys = newKeys;
+    values = newValues;
+    return removed;
   }
 
   /**
@@ -110,7 +235,7 @@ public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
   @SuppressWarnings("unchecked")
   public <T> SettingValue<T> put(Setting<T> setting) {
     try {
-      return (SettingValue<T>) data.put(setting.getKey(), setting.getValue());
+      return (SettingValue<T>) putValue(setting.getKey(), setting.getValue());
     } catch (ClassCastException e) {
       throw mismatchedState(setting.getKey(), setting.getValue());
     }
@@ -119,7 +244,10 @@ public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
   @Deprecated
   @Override
   public SettingValue<?> remove(Object o) {
-    return data.remove(o);
+    if (!(o instanceof SettingKey)) {
+      return null;
+    }
+    return removeValue((SettingKey<?>) o);
   }
 
   /**
@@ -132,7 +260,7 @@ public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
    */
   @SuppressWarnings("unchecked")
   public <T> SettingValue<T> remove(SettingKey<T> key) {
-    SettingValue<?> removed = data.remove(key);
+    SettingValue<?> removed = removeValue(key);
     try {
       return (SettingValue<T>) removed;
     } catch (ClassCastException e) {
@@ -157,19 +285,48 @@ public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
 
   @Override
   public void clear() {
-    data.clear();
+    present = EMPTY_PRESENT;
+    keys = EMPTY_KEYS;
+    values = EMPTY_VALUES;
   }
 
   @Override
   @Nonnull
   public Set<SettingKey<?>> keySet() {
-    return data.keySet();
+    return new AbstractSet<SettingKey<?>>() {
+      @Override
+      @Nonnull
+      public Iterator<SettingKey<?>> iterator() {
+        return Iterators.forArray(keys);
+      }
+
+      @Override
+      public int size() {
+        return keys.length;
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+    };
   }
 
   @Override
   @Nonnull
   public Collection<SettingValue<?>> values() {
-    return data.values();
+    return new AbstractCollection<SettingValue<?>>() {
+      @Override
+      @Nonnull
+      public Iterator<SettingValue<?>> iterator() {
+        return Iterators.forArray(values);
+      }
+
+      @Override
+      public int size() {
+        return values.length;
+      }
+    };
   }
 
   /**
@@ -181,7 +338,39 @@ public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
   @Override
   @Nonnull
   public Set<Entry<SettingKey<?>, SettingValue<?>>> entrySet() {
-    return data.entrySet();
+    return new AbstractSet<Entry<SettingKey<?>, SettingValue<?>>>() {
+      @Override
+      @Nonnull
+      public Iterator<Entry<SettingKey<?>, SettingValue<?>>> iterator() {
+        // Adding or removing a key replaces both arrays, so keep the pair of this moment
+        SettingKey<?>[] entryKeys = keys;
+        SettingValue<?>[] entryValues = values;
+        return new UnmodifiableIterator<Entry<SettingKey<?>, SettingValue<?>>>() {
+          private int index = 0;
+
+          @Override
+          public boolean hasNext() {
+            return index < entryKeys.length;
+          }
+
+          @Override
+          public Entry<SettingKey<?>, SettingValue<?>> next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            Entry<SettingKey<?>, SettingValue<?>> entry = Maps.immutableEntry(entryKeys[index],
+                entryValues[index]);
+            index++;
+            return entry;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return keys.length;
+      }
+    };
   }
 
   /**
@@ -192,7 +381,7 @@ public class SettingMap implements Map<SettingKey<?>, SettingValue<?>> {
    */
   @SuppressWarnings("unchecked")
   public Set<Setting<?>> entries() {
-    return data.keySet().stream()
+    return Arrays.stream(keys)
         .map(key -> Setting.of(
             (SettingKey<Object>) key,
             (SettingValue<Object>) this.get(key)))
@@ -31,6 +31,7 @@ import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.minecraftonline.nope.host.Host;
+import com.minecraftonline.nope.permission.PermissionCache;
 import com.minecraftonline.nope.permission.Permissions;
 import java.util.Collection;
 import java.util.HashMap;
@@ -39,6 +40,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import lombok.Getter;
 import lombok.Setter;
@@ -352,8 +354,25 @@ public class SettingValue<T> {
      */
     @Override
     public boolean test(SettingKey<?> key, User user) {
+      return test(key, user, user::hasPermission);
+    }
+
+    /**
+     * Decide whether this subject is targeted,
+     * checking its permissions through a {@link PermissionCache}.
+     *
+     * @param key         the setting key
+     * @param user        the permission subject
+     * @param permissions the cache of permission checks
+     * @return true if the subject is targeted
+     */
+    public boolean test(SettingKey<?> key, User user, PermissionCache permissions) {
+      return test(key, user, permission -> permissions.hasPermission(user, permission));
+    }
+
+    private boolean test(SettingKey<?> key, User user, Predicate<String> hasPermission) {
       if (key.isPlayerRestrictive()) {
-        if (!forceAffect && user.hasPermission(Permissions.UNRESTRICTED.get())) {
+        if (!forceAffect && hasPermission.test(Permissions.UNRESTRICTED.get())) {
           return false;
         }
       }
@@ -365,8 +384,12 @@ public class SettingValue<T> {
           return false;
         }
       }
-      return this.entrySet().stream().allMatch(entry ->
-          user.hasPermission(entry.getKey()) == entry.getValue());
+      for (Map.Entry<String, Boolean> entry : this.entrySet()) {
+        if (hasPermission.test(entry.getKey()) != entry.getValue()) {
+          return false;
+        }
+      }
+      return true;
     }
 
     public Set<UUID> getUsers() {
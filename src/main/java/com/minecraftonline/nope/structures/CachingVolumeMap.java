@@ -0,0 +1,449 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.structures;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link VolumeMap} which caches the answers of another
+ * {@link VolumeMap} to queries for the containers of points.
+ *
+ * <p>Points are packed into primitive longs and stored in an
+ * open-addressing hash table, so answering a cached query allocates
+ * nothing. The cache never holds more than its capacity: once full,
+ * every insertion evicts an entry using the CLOCK policy, where the
+ * clock hand sweeps the table and evicts the first entry which was
+ * not queried since the hand last passed it.
+ *
+ * <p>The table starts small and doubles as points are cached, so a cache
+ * with a large capacity only takes the memory of the points it holds.
+ *
+ * <p>Adding or removing a volume only invalidates the cached
+ * points inside that volume, so the cache stays warm for
+ * every other part of the world.
+ *
+ * @param <S> the volume key type
+ * @param <T> the volume type
+ */
+public class CachingVolumeMap<S, T extends Volume> implements VolumeMap<S, T> {
+
+  /**
+   * The greatest number of regions a modification may invalidate
+   * individually. Modifications of more volumes, like loading a world's
+   * zones, clear the whole cache instead of sweeping it once per volume.
+   */
+  private static final int MAX_INVALIDATION_REGIONS = 32;
+
+  /**
+   * The greatest capacity a cache may have.
+   */
+  public static final int MAX_CAPACITY = 1 << 22;
+
+  /**
+   * The number of slots in the table of an empty cache.
+   */
+  private static final int INITIAL_LENGTH = 1 << 6;
+
+  private final VolumeMap<S, T> delegate;
+  private final int capacity;
+  /**
+   * The number of slots in the table once the cache is full,
+   * which keeps the table at most half full so probe sequences stay short.
+   */
+  private final int maxLength;
+  private int mask;
+  private long[] points;
+  private Object[] containers;
+  private boolean[] referenced;
+  private int size = 0;
+  private int hand = 0;
+
+  /**
+   * Default constructor.
+   *
+   * @param delegate the map whose queries are cached
+   * @param capacity the greatest number of points to cache
+   */
+  public CachingVolumeMap(VolumeMap<S, T> delegate, int capacity) {
+    if (capacity <= 0 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("The capacity of a cache must be positive and at most "
+          + MAX_CAPACITY);
+    }
+    this.delegate = delegate;
+    this.capacity = capacity;
+    this.maxLength = Integer.highestOneBit(2 * capacity - 1) << 1;
+    allocate(Math.min(INITIAL_LENGTH, maxLength));
+  }
+
+  private void allocate(int length) {
+    this.mask = length - 1;
+    this.points = new long[length];
+    this.containers = new Object[length];
+    this.referenced = new boolean[length];
+  }
+
+  /**
+   * Get the map whose queries are cached.
+   *
+   * @return the delegate map
+   */
+  public VolumeMap<S, T> getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Get the number of points whose containers are currently cached.
+   *
+   * @return the number of cached points
+   */
+  public synchronized int getCacheSize() {
+    return size;
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> containersOf(int x, int y, int z) {
+    return cachedContainersOf(x, y, z);
+  }
+
+  @Override
+  public int containersOf(int x, int y, int z, @Nonnull Collection<? super T> results) {
+    ImmutableList<T> found = cachedContainersOf(x, y, z);
+    for (int i = 0; i < found.size(); i++) {
+      results.add(found.get(i));
+    }
+    return found.size();
+  }
+
+  @Override
+  public T findFirst(int x, int y, int z, @Nonnull Predicate<? super T> filter) {
+    ImmutableList<T> found = cachedContainersOf(x, y, z);
+    for (int i = 0; i < found.size(); i++) {
+      if (filter.test(found.get(i))) {
+        return found.get(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get all volumes which intersect the given volume, straight from the delegate.
+   * These queries are not cached.
+   *
+   * @param volume the volume
+   * @return the intersecting volumes
+   */
+  @Nonnull
+  @Override
+  public synchronized Collection<T> intersecting(@Nonnull Volume volume) {
+    return delegate.intersecting(volume);
+  }
+
+  @Override
+  public synchronized boolean anyIntersecting(@Nonnull Volume volume) {
+    return delegate.anyIntersecting(volume);
+  }
+
+  @Nonnull
+  @Override
+  public synchronized Collection<T> containedIn(@Nonnull Volume volume) {
+    return delegate.containedIn(volume);
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized ImmutableList<T> cachedContainersOf(int x, int y, int z) {
+    if (!PackedPoints.isPackable(x, y, z)) {
+      return ImmutableList.copyOf(delegate.containersOf(x, y, z));
+    }
+    long point = PackedPoints.pack(x, y, z);
+    int slot = find(point);
+    if (containers[slot] != null) {
+      referenced[slot] = true;
+      return (ImmutableList<T>) containers[slot];
+    }
+    ImmutableList<T> found = ImmutableList.copyOf(delegate.containersOf(x, y, z));
+    if (size == capacity) {
+      evict();
+      // Eviction may have shifted entries into the probe sequence of this point
+      slot = find(point);
+    } else if (2 * (size + 1) > mask + 1) {
+      grow();
+      slot = find(point);
+    }
+    points[slot] = point;
+    containers[slot] = found;
+    referenced[slot] = false;
+    size++;
+    return found;
+  }
+
+  /**
+   * Find the slot of a point, which is either the slot
+   * caching the point or the empty slot ending its probe sequence.
+   *
+   * @param point the packed point
+   * @return the slot
+   */
+  private int find(long point) {
+    int slot = slotOf(point);
+    while (containers[slot] != null && points[slot] != point) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Double the number of slots in the table, keeping every cached entry.
+   */
+  private void grow() {
+    long[] oldPoints = points;
+    Object[] oldContainers = containers;
+    boolean[] oldReferenced = referenced;
+    allocate(oldContainers.length * 2);
+    for (int i = 0; i < oldContainers.length; i++) {
+      if (oldContainers[i] != null) {
+        int slot = find(oldPoints[i]);
+        points[slot] = oldPoints[i];
+        containers[slot] = oldContainers[i];
+        referenced[slot] = oldReferenced[i];
+      }
+    }
+    hand = 0;
+  }
+
+  /**
+   * Evict one entry, sweeping the clock hand past every
+   * entry which was referenced since it last passed.
+   */
+  private void evict() {
+    while (true) {
+      if (containers[hand] != null) {
+        if (!referenced[hand]) {
+          delete(hand);
+          return;
+        }
+        referenced[hand] = false;
+      }
+      hand = (hand + 1) & mask;
+    }
+  }
+
+  /**
+   * Delete the entry in a slot, shifting later entries of
+   * the same probe sequence back so none become unreachable.
+   *
+   * @param slot the slot
+   */
+  private void delete(int slot) {
+    int empty = slot;
+    int next = (slot + 1) & mask;
+    while (containers[next] != null) {
+      int home = slotOf(points[next]);
+      // Move the entry back only if its home slot does not lie cyclically in (empty, next]
+      if (((next - home) & mask) >= ((next - empty) & mask)) {
+        points[empty] = points[next];
+        containers[empty] = containers[next];
+        referenced[empty] = referenced[next];
+        empty = next;
+      }
+      next = (next + 1) & mask;
+    }
+    containers[empty] = null;
+    referenced[empty] = false;
+    size--;
+  }
+
+  /**
+   * Remove the cached entries of every point inside any of the given
+   * regions, which are the only points whose containers may have
+   * changed when volumes occupying those regions are added or removed.
+   * Regions with fewer points than the table has slots have each of
+   * their points removed, and otherwise the whole table is swept.
+   *
+   * @param regions the regions whose points to remove
+   */
+  private void invalidate(Collection<? extends Volume> regions) {
+    if (regions.isEmpty() || size == 0) {
+      return;
+    }
+    if (regions.size() > MAX_INVALIDATION_REGIONS) {
+      clearCache();
+      return;
+    }
+    long pointCount = 0;
+    for (Volume region : regions) {
+      pointCount += pointCount(region, mask + 1);
+    }
+    if (pointCount < mask + 1) {
+      regions.forEach(this::invalidatePoints);
+      return;
+    }
+    int slot = 0;
+    while (slot <= mask) {
+      if (containers[slot] != null && anyContains(regions, points[slot])) {
+        // Deletion may shift a later entry into this slot, so check it again
+        delete(slot);
+      } else {
+        slot++;
+      }
+    }
+  }
+
+  /**
+   * Count the points of a region, up to a limit.
+   *
+   * @param region the region
+   * @param limit  the limit
+   * @return the number of points, or the limit if there are more
+   */
+  private static long pointCount(Volume region, long limit) {
+    long count = Math.min((long) region.getMaxX() - region.getMinX() + 1, limit);
+    count = Math.min(count * ((long) region.getMaxY() - region.getMinY() + 1), limit);
+    return Math.min(count * ((long) region.getMaxZ() - region.getMinZ() + 1), limit);
+  }
+
+  private void invalidatePoints(Volume region) {
+    // Bounds may lie at the limits of integers, so count with longs
+    for (long x = region.getMinX(); x <= region.getMaxX(); x++) {
+      for (long y = region.getMinY(); y <= region.getMaxY(); y++) {
+        for (long z = region.getMinZ(); z <= region.getMaxZ(); z++) {
+          if (PackedPoints.isPackable((int) x, (int) y, (int) z)) {
+            int slot = find(PackedPoints.pack((int) x, (int) y, (int) z));
+            if (containers[slot] != null) {
+              delete(slot);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean anyContains(Collection<? extends Volume> regions, long point) {
+    int x = PackedPoints.unpackX(point);
+    int y = PackedPoints.unpackY(point);
+    int z = PackedPoints.unpackZ(point);
+    for (Volume region : regions) {
+      if (region.contains(x, y, z)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Remove every cached entry.
+   */
+  public synchronized void clearCache() {
+    allocate(Math.min(INITIAL_LENGTH, maxLength));
+    size = 0;
+    hand = 0;
+  }
+
+  private int slotOf(long point) {
+    long hash = point * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  @Override
+  public synchronized T add(S key, T volume) {
+    T replaced = delegate.add(key, volume);
+    invalidate(replaced == null
+        ? Collections.singletonList(volume)
+        : Arrays.asList(volume, replaced));
+    return replaced;
+  }
+
+  @Override
+  public void addAll(Map<S, T> map) {
+    update(Collections.emptyList(), map);
+  }
+
+  @Override
+  public synchronized void update(Collection<S> removals, Map<S, T> additions) {
+    List<T> regions = new ArrayList<>(removals.size() + additions.size());
+    removals.forEach(key -> {
+      T volume = delegate.get(key);
+      if (volume != null) {
+        regions.add(volume);
+      }
+    });
+    additions.forEach((key, volume) -> {
+      T replaced = delegate.get(key);
+      if (replaced != null) {
+        regions.add(replaced);
+      }
+      regions.add(volume);
+    });
+    delegate.update(removals, additions);
+    invalidate(regions);
+  }
+
+  @Override
+  public synchronized T remove(S key) {
+    T removed = delegate.remove(key);
+    if (removed != null) {
+      invalidate(Collections.singletonList(removed));
+    }
+    return removed;
+  }
+
+  @Nonnull
+  @Override
+  public Set<S> keySet() {
+    return delegate.keySet();
+  }
+
+  @Override
+  public T get(S key) {
+    return delegate.get(key);
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> volumes() {
+    return delegate.volumes();
+  }
+
+  @Override
+  public boolean containsKey(S key) {
+    return delegate.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+}
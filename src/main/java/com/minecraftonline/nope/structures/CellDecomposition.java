@@ -0,0 +1,245 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.structures;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable division of all space into disjoint cuboid cells,
+ * such that every volume either contains a whole cell or none of it.
+ * Every point therefore lies in exactly one cell, and the volumes
+ * containing the point are exactly the volumes of its cell.
+ *
+ * <p>Space is divided at the boundaries of the volumes which only
+ * partially cover a region, choosing the median boundary along the
+ * dimension with the most of them, until no volume partially covers
+ * any region. Cells with the same volumes share one cell index,
+ * so anything derived from the volumes of a cell only has to be
+ * derived once for all of them.
+ *
+ * @param <T> the type of volume
+ */
+public final class CellDecomposition<T extends Volume> {
+
+  private static final int LEAF = -1;
+  private static final int X = 0;
+  private static final int Y = 1;
+  private static final int Z = 2;
+
+  private int[] axes = new int[64];
+  private int[] splits = new int[64];
+  private int[] lefts = new int[64];
+  private int[] rights = new int[64];
+  private int nodeCount = 0;
+  private int leafCount = 0;
+  private final int maxLeaves;
+  private final List<Set<T>> cells = new ArrayList<>();
+  private final Map<Set<T>, Integer> cellIndices = Maps.newHashMap();
+
+  private CellDecomposition(int maxLeaves) {
+    this.maxLeaves = maxLeaves;
+  }
+
+  /**
+   * Divide space into cells by the given volumes.
+   *
+   * @param volumes   the volumes
+   * @param maxLeaves the greatest number of disjoint cuboids into which
+   *                  space may be divided before giving up
+   * @param <T>       the type of volume
+   * @return the division, or null if it needs more cuboids than allowed
+   */
+  @Nullable
+  public static <T extends Volume> CellDecomposition<T> of(@Nonnull Collection<? extends T> volumes,
+                                                           int maxLeaves) {
+    CellDecomposition<T> decomposition = new CellDecomposition<>(maxLeaves);
+    int[] low = {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+    int[] high = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+    if (decomposition.build(new ArrayList<>(volumes), low, high) == LEAF) {
+      return null;
+    }
+    return decomposition;
+  }
+
+  /**
+   * Get the index of the cell containing a point.
+   *
+   * @param x x value
+   * @param y y value
+   * @param z z value
+   * @return the index of the cell, from 0 inclusive to {@link #getCellCount()} exclusive
+   */
+  public int cellOf(int x, int y, int z) {
+    int node = 0;
+    int axis;
+    while ((axis = axes[node]) != LEAF) {
+      int value = axis == X ? x : axis == Y ? y : z;
+      node = value >= splits[node] ? rights[node] : lefts[node];
+    }
+    return lefts[node];
+  }
+
+  /**
+   * Get the volumes which contain every point of a cell.
+   *
+   * @param cell the index of the cell
+   * @return the volumes
+   */
+  @Nonnull
+  public Set<T> getVolumes(int cell) {
+    return cells.get(cell);
+  }
+
+  /**
+   * Get the number of distinct cells, where all cuboids
+   * with the same volumes are counted as one cell.
+   *
+   * @return the number of cells
+   */
+  public int getCellCount() {
+    return cells.size();
+  }
+
+  /**
+   * Get the number of disjoint cuboids into which space is divided.
+   *
+   * @return the number of cuboids
+   */
+  public int getLeafCount() {
+    return leafCount;
+  }
+
+  /**
+   * Divide a region into cells.
+   *
+   * @param candidates the volumes which intersect the region
+   * @param low        the minimum of the region in each dimension, inclusive
+   * @param high       the maximum of the region in each dimension, inclusive
+   * @return the node of the region, or {@link #LEAF} if too many cuboids are needed
+   */
+  private int build(List<T> candidates, int[] low, int[] high) {
+    int node = nodeCount++;
+    ensureCapacity(nodeCount);
+
+    // Find the dimension with the most boundaries of volumes which lie inside the region
+    int[] boundaries = null;
+    int boundaryCount = 0;
+    int axis = LEAF;
+    for (int dimension : new int[]{X, Z, Y}) {
+      int[] found = new int[candidates.size() * 2];
+      int count = 0;
+      for (T volume : candidates) {
+        if (min(volume, dimension) > low[dimension]) {
+          found[count++] = min(volume, dimension);
+        }
+        if (max(volume, dimension) < high[dimension]) {
+          found[count++] = max(volume, dimension) + 1;
+        }
+      }
+      if (count > boundaryCount) {
+        boundaries = found;
+        boundaryCount = count;
+        axis = dimension;
+      }
+    }
+
+    if (axis == LEAF) {
+      // Every candidate contains the whole region
+      if (++leafCount > maxLeaves) {
+        return LEAF;
+      }
+      Set<T> volumes = ImmutableSet.copyOf(candidates);
+      Integer cell = cellIndices.get(volumes);
+      if (cell == null) {
+        cell = cells.size();
+        cells.add(volumes);
+        cellIndices.put(volumes, cell);
+      }
+      axes[node] = LEAF;
+      lefts[node] = cell;
+      return node;
+    }
+
+    Arrays.sort(boundaries, 0, boundaryCount);
+    int split = boundaries[boundaryCount / 2];
+    List<T> leftCandidates = new ArrayList<>();
+    List<T> rightCandidates = new ArrayList<>();
+    for (T volume : candidates) {
+      if (min(volume, axis) < split) {
+        leftCandidates.add(volume);
+      }
+      if (max(volume, axis) >= split) {
+        rightCandidates.add(volume);
+      }
+    }
+    axes[node] = axis;
+    splits[node] = split;
+
+    int[] leftHigh = high.clone();
+    leftHigh[axis] = split - 1;
+    int left = build(leftCandidates, low, leftHigh);
+    if (left == LEAF) {
+      return LEAF;
+    }
+    int[] rightLow = low.clone();
+    rightLow[axis] = split;
+    int right = build(rightCandidates, rightLow, high);
+    if (right == LEAF) {
+      return LEAF;
+    }
+    lefts[node] = left;
+    rights[node] = right;
+    return node;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > axes.length) {
+      int length = Math.max(capacity, axes.length * 2);
+      axes = Arrays.copyOf(axes, length);
+      splits = Arrays.copyOf(splits, length);
+      lefts = Arrays.copyOf(lefts, length);
+      rights = Arrays.copyOf(rights, length);
+    }
+  }
+
+  private static int min(Volume volume, int axis) {
+    return axis == X ? volume.getMinX() : axis == Y ? volume.getMinY() : volume.getMinZ();
+  }
+
+  private static int max(Volume volume, int axis) {
+    return axis == X ? volume.getMaxX() : axis == Y ? volume.getMaxY() : volume.getMaxZ();
+  }
+
+}
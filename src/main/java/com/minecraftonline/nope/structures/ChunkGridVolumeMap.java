@@ -0,0 +1,530 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.structures;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link VolumeMap} which buckets volumes by the 16x16 chunk
+ * columns they occupy, which suits worlds where most points lie
+ * in chunks which no volume occupies at all.
+ *
+ * <p>The buckets are stored in an open-addressing table keyed by the
+ * packed chunk coordinates, alongside a bitmap of the table slots at
+ * which any occupied chunk hashes. Queries in a chunk whose bit is clear
+ * are answered without probing the table, and queries in an occupied
+ * chunk scan the contiguous bounds of that chunk's volumes.
+ *
+ * <p>Volumes which span too many chunks, like slabs which span the
+ * entire width of a world, are kept in a single separate bucket
+ * which every query scans, so they do not bloat every chunk bucket.
+ *
+ * @param <S> the type of key with which to store the volumes
+ * @param <T> the type of volume
+ */
+public class ChunkGridVolumeMap<S, T extends Volume> implements VolumeMap<S, T> {
+
+  /**
+   * The number of bits by which to shift a block coordinate to get its chunk coordinate.
+   */
+  static final int CHUNK_BITS = 4;
+
+  /**
+   * The greatest number of chunks a volume may occupy before
+   * it is kept in the bucket which every query scans.
+   */
+  static final int MAX_CHUNKS_PER_VOLUME = 256;
+
+  private static final int INITIAL_TABLE_LENGTH = 64;
+  private static final int STRIDE = 6;
+
+  private final HashMap<S, T> volumes = Maps.newHashMap();
+  private final Comparator<? super T> order;
+  private final Bucket wide = new Bucket();
+  private long[] chunks;
+  private Bucket[] buckets;
+  private long[] occupied;
+  private int mask;
+  private int chunkCount = 0;
+
+  public ChunkGridVolumeMap() {
+    this(null);
+  }
+
+  /**
+   * Constructor with an order in which to find the volumes containing a point.
+   * Every bucket keeps its volumes in this order.
+   *
+   * @param order the order, or null if the volumes may be found in any order
+   */
+  public ChunkGridVolumeMap(@Nullable Comparator<? super T> order) {
+    this.order = order;
+    allocate(INITIAL_TABLE_LENGTH);
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> containersOf(int x, int y, int z) {
+    List<T> containers = new ArrayList<>();
+    int wideCount = wide.containersOf(x, y, z, containers);
+    Bucket bucket = find(x >> CHUNK_BITS, z >> CHUNK_BITS);
+    if (bucket != null && bucket.containersOf(x, y, z, containers) > 0 && wideCount > 0 && order != null) {
+      // Each bucket is in order, but the wide volumes come before those of the chunk
+      containers.sort(order);
+    }
+    return containers;
+  }
+
+  @Override
+  public int containersOf(int x, int y, int z, @Nonnull Collection<? super T> results) {
+    int found = wide.containersOf(x, y, z, results);
+    Bucket bucket = find(x >> CHUNK_BITS, z >> CHUNK_BITS);
+    if (bucket != null) {
+      found += bucket.containersOf(x, y, z, results);
+    }
+    return found;
+  }
+
+  @Override
+  public T findFirst(int x, int y, int z, @Nonnull Predicate<? super T> filter) {
+    T first = wide.findFirst(x, y, z, filter);
+    Bucket bucket = find(x >> CHUNK_BITS, z >> CHUNK_BITS);
+    if (bucket == null) {
+      return first;
+    }
+    T firstInChunk = bucket.findFirst(x, y, z, filter);
+    if (first == null || (firstInChunk != null && order != null && order.compare(firstInChunk, first) < 0)) {
+      return firstInChunk;
+    }
+    return first;
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> intersecting(@Nonnull Volume volume) {
+    // A volume sits in the bucket of every chunk it occupies, so only keep the first of each
+    Set<T> intersecting = Sets.newIdentityHashSet();
+    intersecting(volume, intersecting, false);
+    return intersecting;
+  }
+
+  @Override
+  public boolean anyIntersecting(@Nonnull Volume volume) {
+    return intersecting(volume, new ArrayList<>(1), true) > 0;
+  }
+
+  /**
+   * Add all volumes intersecting the given volume to the results, either by
+   * visiting the chunks of the volume or, if the volume spans more chunks
+   * than are occupied, by visiting every occupied chunk.
+   *
+   * @param volume  the volume
+   * @param results the collection to which to add the volumes
+   * @param first   whether to stop at the first intersecting volume
+   * @return the number of volumes added
+   */
+  private int intersecting(Volume volume, Collection<? super T> results, boolean first) {
+    int found = wide.intersecting(volume, results, first);
+    if (first && found > 0) {
+      return found;
+    }
+    if (footprint(volume) <= chunkCount) {
+      for (int chunkX = volume.getMinX() >> CHUNK_BITS;
+           chunkX <= volume.getMaxX() >> CHUNK_BITS;
+           chunkX++) {
+        for (int chunkZ = volume.getMinZ() >> CHUNK_BITS;
+             chunkZ <= volume.getMaxZ() >> CHUNK_BITS;
+             chunkZ++) {
+          Bucket bucket = find(chunkX, chunkZ);
+          if (bucket != null) {
+            found += bucket.intersecting(volume, results, first);
+            if (first && found > 0) {
+              return found;
+            }
+          }
+        }
+      }
+    } else {
+      for (Bucket bucket : buckets) {
+        if (bucket != null) {
+          found += bucket.intersecting(volume, results, first);
+          if (first && found > 0) {
+            return found;
+          }
+        }
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public T add(S key, T volume) {
+    T replaced = volumes.put(key, volume);
+    if (replaced != null) {
+      unindex(key, replaced);
+    }
+    index(key, volume);
+    return replaced;
+  }
+
+  @Override
+  public void addAll(Map<S, T> map) {
+    update(Collections.emptyList(), map);
+  }
+
+  @Override
+  public void update(Collection<S> removals, Map<S, T> additions) {
+    removals.forEach(this::remove);
+    additions.forEach(this::add);
+  }
+
+  @Override
+  public T remove(S key) {
+    T removed = volumes.remove(key);
+    if (removed != null) {
+      unindex(key, removed);
+    }
+    return removed;
+  }
+
+  @Nonnull
+  @Override
+  public Set<S> keySet() {
+    return volumes.keySet();
+  }
+
+  @Override
+  public T get(S key) {
+    return volumes.get(key);
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> volumes() {
+    return volumes.values();
+  }
+
+  @Override
+  public boolean containsKey(S key) {
+    return volumes.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return volumes.size();
+  }
+
+  /**
+   * Get the number of chunks which are occupied by any volume,
+   * not counting the volumes which span too many chunks.
+   *
+   * @return the number of occupied chunks
+   */
+  public int getChunkCount() {
+    return chunkCount;
+  }
+
+  /**
+   * Get the number of chunks a volume occupies.
+   *
+   * @param volume the volume
+   * @return the number of chunks
+   */
+  static long footprint(Volume volume) {
+    long chunksX = (volume.getMaxX() >> CHUNK_BITS) - (volume.getMinX() >> CHUNK_BITS) + 1L;
+    long chunksZ = (volume.getMaxZ() >> CHUNK_BITS) - (volume.getMinZ() >> CHUNK_BITS) + 1L;
+    return chunksX * chunksZ;
+  }
+
+  private static boolean isWide(Volume volume) {
+    return footprint(volume) > MAX_CHUNKS_PER_VOLUME;
+  }
+
+  private void index(S key, T volume) {
+    if (isWide(volume)) {
+      wide.add(key, volume);
+      return;
+    }
+    for (int chunkX = volume.getMinX() >> CHUNK_BITS;
+         chunkX <= volume.getMaxX() >> CHUNK_BITS;
+         chunkX++) {
+      for (int chunkZ = volume.getMinZ() >> CHUNK_BITS;
+           chunkZ <= volume.getMaxZ() >> CHUNK_BITS;
+           chunkZ++) {
+        Bucket bucket = find(chunkX, chunkZ);
+        if (bucket == null) {
+          bucket = new Bucket();
+          insert(pack(chunkX, chunkZ), bucket);
+        }
+        bucket.add(key, volume);
+      }
+    }
+  }
+
+  private void unindex(S key, T volume) {
+    if (isWide(volume)) {
+      wide.remove(key);
+      return;
+    }
+    for (int chunkX = volume.getMinX() >> CHUNK_BITS;
+         chunkX <= volume.getMaxX() >> CHUNK_BITS;
+         chunkX++) {
+      for (int chunkZ = volume.getMinZ() >> CHUNK_BITS;
+           chunkZ <= volume.getMaxZ() >> CHUNK_BITS;
+           chunkZ++) {
+        long chunk = pack(chunkX, chunkZ);
+        int slot = slotOf(chunk);
+        while (buckets[slot] != null && chunks[slot] != chunk) {
+          slot = (slot + 1) & mask;
+        }
+        if (buckets[slot] == null) {
+          throw new IllegalStateException("Volume is missing from the bucket of chunk ("
+              + chunkX + ", " + chunkZ + ")");
+        }
+        buckets[slot].remove(key);
+        if (buckets[slot].count == 0) {
+          delete(slot);
+        }
+      }
+    }
+  }
+
+  /**
+   * Find the bucket of a chunk.
+   *
+   * @param chunkX the chunk x coordinate
+   * @param chunkZ the chunk z coordinate
+   * @return the bucket, or null if no volume occupies the chunk
+   */
+  private Bucket find(int chunkX, int chunkZ) {
+    long chunk = pack(chunkX, chunkZ);
+    int slot = slotOf(chunk);
+    if ((occupied[slot >>> 6] & (1L << slot)) == 0) {
+      return null;
+    }
+    while (buckets[slot] != null) {
+      if (chunks[slot] == chunk) {
+        return buckets[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  private void insert(long chunk, Bucket bucket) {
+    if (2 * (chunkCount + 1) > chunks.length) {
+      long[] oldChunks = chunks;
+      Bucket[] oldBuckets = buckets;
+      allocate(chunks.length * 2);
+      for (int i = 0; i < oldChunks.length; i++) {
+        if (oldBuckets[i] != null) {
+          insert(oldChunks[i], oldBuckets[i]);
+        }
+      }
+    }
+    int home = slotOf(chunk);
+    int slot = home;
+    while (buckets[slot] != null) {
+      slot = (slot + 1) & mask;
+    }
+    chunks[slot] = chunk;
+    buckets[slot] = bucket;
+    occupied[home >>> 6] |= 1L << home;
+    chunkCount++;
+  }
+
+  /**
+   * Delete the bucket in a slot, shifting later buckets of the same probe
+   * sequence back so none become unreachable, and clear the bit of the
+   * deleted chunk's home slot if no other chunk hashes there.
+   *
+   * @param slot the slot
+   */
+  private void delete(int slot) {
+    int home = slotOf(chunks[slot]);
+    int empty = slot;
+    int next = (slot + 1) & mask;
+    while (buckets[next] != null) {
+      int nextHome = slotOf(chunks[next]);
+      // Move the bucket back only if its home slot does not lie cyclically in (empty, next]
+      if (((next - nextHome) & mask) >= ((next - empty) & mask)) {
+        chunks[empty] = chunks[next];
+        buckets[empty] = buckets[next];
+        empty = next;
+      }
+      next = (next + 1) & mask;
+    }
+    buckets[empty] = null;
+    chunkCount--;
+
+    // Every chunk which hashes to the home slot lies in the run of buckets starting there
+    for (int i = home; buckets[i] != null; i = (i + 1) & mask) {
+      if (slotOf(chunks[i]) == home) {
+        return;
+      }
+    }
+    occupied[home >>> 6] &= ~(1L << home);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void allocate(int length) {
+    chunks = new long[length];
+    buckets = new ChunkGridVolumeMap.Bucket[length];
+    occupied = new long[Math.max(1, length >>> 6)];
+    mask = length - 1;
+    chunkCount = 0;
+  }
+
+  private int slotOf(long chunk) {
+    long hash = chunk * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private static long pack(int chunkX, int chunkZ) {
+    return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+  }
+
+  /**
+   * The volumes which occupy one chunk, with their bounds
+   * stored contiguously so they can be scanned quickly.
+   */
+  private class Bucket {
+
+    private Object[] keys = new Object[2];
+    private Object[] members = new Object[2];
+    private int[] bounds = new int[2 * STRIDE];
+    private int count = 0;
+
+    @SuppressWarnings("unchecked")
+    void add(S key, T volume) {
+      if (count == keys.length) {
+        keys = Arrays.copyOf(keys, count * 2);
+        members = Arrays.copyOf(members, count * 2);
+        bounds = Arrays.copyOf(bounds, count * 2 * STRIDE);
+      }
+      int index = count;
+      if (order != null) {
+        // Insert after every volume which does not come after this one
+        while (index > 0 && order.compare((T) members[index - 1], volume) > 0) {
+          index--;
+        }
+        System.arraycopy(keys, index, keys, index + 1, count - index);
+        System.arraycopy(members, index, members, index + 1, count - index);
+        System.arraycopy(bounds, index * STRIDE, bounds, (index + 1) * STRIDE, (count - index) * STRIDE);
+      }
+      int offset = index * STRIDE;
+      bounds[offset] = volume.getMinX();
+      bounds[offset + 1] = volume.getMaxX();
+      bounds[offset + 2] = volume.getMinY();
+      bounds[offset + 3] = volume.getMaxY();
+      bounds[offset + 4] = volume.getMinZ();
+      bounds[offset + 5] = volume.getMaxZ();
+      keys[index] = key;
+      members[index] = volume;
+      count++;
+    }
+
+    void remove(S key) {
+      for (int i = 0; i < count; i++) {
+        if (keys[i].equals(key)) {
+          count--;
+          if (order == null) {
+            keys[i] = keys[count];
+            members[i] = members[count];
+            System.arraycopy(bounds, count * STRIDE, bounds, i * STRIDE, STRIDE);
+          } else {
+            // Shift the later volumes back to keep them in order
+            System.arraycopy(keys, i + 1, keys, i, count - i);
+            System.arraycopy(members, i + 1, members, i, count - i);
+            System.arraycopy(bounds, (i + 1) * STRIDE, bounds, i * STRIDE, (count - i) * STRIDE);
+          }
+          keys[count] = null;
+          members[count] = null;
+          return;
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    int containersOf(int x, int y, int z, Collection<? super T> results) {
+      int found = 0;
+      for (int i = 0, offset = 0; i < count; i++, offset += STRIDE) {
+        // Non-short-circuit operators keep the scan free of unpredictable branches
+        if (bounds[offset] <= x & x <= bounds[offset + 1]
+            & bounds[offset + 2] <= y & y <= bounds[offset + 3]
+            & bounds[offset + 4] <= z & z <= bounds[offset + 5]) {
+          results.add((T) members[i]);
+          found++;
+        }
+      }
+      return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    T findFirst(int x, int y, int z, Predicate<? super T> filter) {
+      for (int i = 0, offset = 0; i < count; i++, offset += STRIDE) {
+        if (bounds[offset] <= x & x <= bounds[offset + 1]
+            & bounds[offset + 2] <= y & y <= bounds[offset + 3]
+            & bounds[offset + 4] <= z & z <= bounds[offset + 5]
+            && filter.test((T) members[i])) {
+          return (T) members[i];
+        }
+      }
+      return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    int intersecting(Volume volume, Collection<? super T> results, boolean first) {
+      int found = 0;
+      for (int i = 0, offset = 0; i < count; i++, offset += STRIDE) {
+        if (bounds[offset] <= volume.getMaxX() && volume.getMinX() <= bounds[offset + 1]
+            && bounds[offset + 2] <= volume.getMaxY() && volume.getMinY() <= bounds[offset + 3]
+            && bounds[offset + 4] <= volume.getMaxZ() && volume.getMinZ() <= bounds[offset + 5]) {
+          results.add((T) members[i]);
+          found++;
+          if (first) {
+            break;
+          }
+        }
+      }
+      return found;
+    }
+  }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.structures;
+
+/**
+ * An immutable {@link Volume} which is only defined by its bounds,
+ * like a region to query a {@link VolumeMap} with.
+ */
+public class Cuboid implements Volume {
+
+  private final int xmin;
+  private final int xmax;
+  private final int ymin;
+  private final int ymax;
+  private final int zmin;
+  private final int zmax;
+
+  /**
+   * Default constructor.
+   *
+   * @param xmin the minimum x value, inclusive
+   * @param xmax the maximum x value, inclusive
+   * @param ymin the minimum y value, inclusive
+   * @param ymax the maximum y value, inclusive
+   * @param zmin the minimum z value, inclusive
+   * @param zmax the maximum z value, inclusive
+   */
+  public Cuboid(int xmin, int xmax, int ymin, int ymax, int zmin, int zmax) {
+    if (xmin > xmax || ymin > ymax || zmin > zmax) {
+      throw new IllegalArgumentException("Minimum values must be less than "
+          + "or equal to maximum values");
+    }
+    this.xmin = xmin;
+    this.xmax = xmax;
+    this.ymin = ymin;
+    this.ymax = ymax;
+    this.zmin = zmin;
+    this.zmax = zmax;
+  }
+
+  /**
+   * Create the cuboid of all points within some distance of a point
+   * along each axis, clamping the bounds to the range of integers.
+   *
+   * @param x      x value of the center
+   * @param y      y value of the center
+   * @param z      z value of the center
+   * @param radius the distance, which must not be negative
+   * @return the cuboid
+   */
+  public static Cuboid around(int x, int y, int z, int radius) {
+    if (radius < 0) {
+      throw new IllegalArgumentException("The radius of a cuboid must not be negative");
+    }
+    return new Cuboid(
+        clamp((long) x - radius), clamp((long) x + radius),
+        clamp((long) y - radius), clamp((long) y + radius),
+        clamp((long) z - radius), clamp((long) z + radius));
+  }
+
+  private static int clamp(long value) {
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+  }
+
+  @Override
+  public int getMinX() {
+    return xmin;
+  }
+
+  @Override
+  public int getMaxX() {
+    return xmax;
+  }
+
+  @Override
+  public int getMinY() {
+    return ymin;
+  }
+
+  @Override
+  public int getMaxY() {
+    return ymax;
+  }
+
+  @Override
+  public int getMinZ() {
+    return zmin;
+  }
+
+  @Override
+  public int getMaxZ() {
+    return zmax;
+  }
+
+  /**
+   * Get the cuboid of all points in both this and another volume.
+   *
+   * @param other the other volume
+   * @return the intersection, or null if the volumes do not intersect
+   */
+  public Cuboid intersection(Volume other) {
+    if (!intersects(other)) {
+      return null;
+    }
+    return new Cuboid(
+        Math.max(xmin, other.getMinX()), Math.min(xmax, other.getMaxX()),
+        Math.max(ymin, other.getMinY()), Math.min(ymax, other.getMaxY()),
+        Math.max(zmin, other.getMinZ()), Math.min(zmax, other.getMaxZ()));
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Cuboid)) {
+      return false;
+    }
+    Cuboid cuboid = (Cuboid) other;
+    return xmin == cuboid.xmin && xmax == cuboid.xmax
+        && ymin == cuboid.ymin && ymax == cuboid.ymax
+        && zmin == cuboid.zmin && zmax == cuboid.zmax;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = xmin;
+    result = 31 * result + xmax;
+    result = 31 * result + ymin;
+    result = 31 * result + ymax;
+    result = 31 * result + zmin;
+    result = 31 * result + zmax;
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("(%d, %d, %d) -> (%d, %d, %d)", xmin, ymin, zmin, xmax, ymax, zmax);
+  }
+
+}
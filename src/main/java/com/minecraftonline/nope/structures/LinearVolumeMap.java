@@ -0,0 +1,237 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.structures;
+
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link VolumeMap} which answers queries by scanning the bounds of
+ * every volume, stored contiguously. For only a handful of volumes,
+ * this is faster than traversing any more elaborate structure.
+ *
+ * @param <S> the type of key with which to store the volumes
+ * @param <T> the type of volume
+ */
+public class LinearVolumeMap<S, T extends Volume> implements VolumeMap<S, T> {
+
+  private static final int STRIDE = 6;
+
+  private final HashMap<S, T> volumes = Maps.newHashMap();
+  private final Comparator<? super T> order;
+  private volatile Snapshot snapshot = new Snapshot(new Object[0]);
+
+  public LinearVolumeMap() {
+    this(null);
+  }
+
+  /**
+   * Constructor with an order in which to find the volumes containing a point.
+   *
+   * @param order the order, or null if the volumes may be found in any order
+   */
+  public LinearVolumeMap(@Nullable Comparator<? super T> order) {
+    this.order = order;
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> containersOf(int x, int y, int z) {
+    List<T> containers = new ArrayList<>();
+    containersOf(x, y, z, containers);
+    return containers;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public int containersOf(int x, int y, int z, @Nonnull Collection<? super T> results) {
+    Snapshot snapshot = this.snapshot;
+    int[] bounds = snapshot.bounds;
+    Object[] members = snapshot.members;
+    int found = 0;
+    for (int i = 0, offset = 0; offset < bounds.length; i++, offset += STRIDE) {
+      // Non-short-circuit operators keep the scan free of unpredictable branches
+      if (bounds[offset] <= x & x <= bounds[offset + 1]
+          & bounds[offset + 2] <= y & y <= bounds[offset + 3]
+          & bounds[offset + 4] <= z & z <= bounds[offset + 5]) {
+        results.add((T) members[i]);
+        found++;
+      }
+    }
+    return found;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T findFirst(int x, int y, int z, @Nonnull Predicate<? super T> filter) {
+    Snapshot snapshot = this.snapshot;
+    int[] bounds = snapshot.bounds;
+    Object[] members = snapshot.members;
+    for (int i = 0, offset = 0; offset < bounds.length; i++, offset += STRIDE) {
+      if (bounds[offset] <= x & x <= bounds[offset + 1]
+          & bounds[offset + 2] <= y & y <= bounds[offset + 3]
+          & bounds[offset + 4] <= z & z <= bounds[offset + 5]
+          && filter.test((T) members[i])) {
+        return (T) members[i];
+      }
+    }
+    return null;
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> intersecting(@Nonnull Volume volume) {
+    List<T> intersecting = new ArrayList<>();
+    intersecting(volume, intersecting, false);
+    return intersecting;
+  }
+
+  @Override
+  public boolean anyIntersecting(@Nonnull Volume volume) {
+    return intersecting(volume, new ArrayList<>(1), true) > 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private int intersecting(Volume volume, Collection<? super T> results, boolean first) {
+    Snapshot snapshot = this.snapshot;
+    int[] bounds = snapshot.bounds;
+    Object[] members = snapshot.members;
+    int found = 0;
+    for (int i = 0, offset = 0; offset < bounds.length; i++, offset += STRIDE) {
+      if (bounds[offset] <= volume.getMaxX() && volume.getMinX() <= bounds[offset + 1]
+          && bounds[offset + 2] <= volume.getMaxY() && volume.getMinY() <= bounds[offset + 3]
+          && bounds[offset + 4] <= volume.getMaxZ() && volume.getMinZ() <= bounds[offset + 5]) {
+        results.add((T) members[i]);
+        found++;
+        if (first) {
+          break;
+        }
+      }
+    }
+    return found;
+  }
+
+  @Override
+  public T add(S key, T volume) {
+    T replaced = volumes.put(key, volume);
+    compile();
+    return replaced;
+  }
+
+  @Override
+  public void addAll(Map<S, T> map) {
+    update(Collections.emptyList(), map);
+  }
+
+  @Override
+  public void update(Collection<S> removals, Map<S, T> additions) {
+    removals.forEach(volumes::remove);
+    volumes.putAll(additions);
+    compile();
+  }
+
+  @Override
+  public T remove(S key) {
+    T removed = volumes.remove(key);
+    if (removed != null) {
+      compile();
+    }
+    return removed;
+  }
+
+  @Nonnull
+  @Override
+  public Set<S> keySet() {
+    return volumes.keySet();
+  }
+
+  @Override
+  public T get(S key) {
+    return volumes.get(key);
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> volumes() {
+    return volumes.values();
+  }
+
+  @Override
+  public boolean containsKey(S key) {
+    return volumes.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return volumes.size();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void compile() {
+    Object[] members = volumes.values().toArray();
+    if (order != null) {
+      Arrays.sort(members, (o1, o2) -> order.compare((T) o1, (T) o2));
+    }
+    snapshot = new Snapshot(members);
+  }
+
+  /**
+   * The volumes at one point in time, with their bounds
+   * copied into the array which queries scan.
+   */
+  private static final class Snapshot {
+
+    private final Object[] members;
+    private final int[] bounds;
+
+    private Snapshot(Object[] members) {
+      this.members = members;
+      this.bounds = new int[members.length * STRIDE];
+      for (int i = 0; i < members.length; i++) {
+        Volume volume = (Volume) members[i];
+        int offset = i * STRIDE;
+        bounds[offset] = volume.getMinX();
+        bounds[offset + 1] = volume.getMaxX();
+        bounds[offset + 2] = volume.getMinY();
+        bounds[offset + 3] = volume.getMaxY();
+        bounds[offset + 4] = volume.getMinZ();
+        bounds[offset + 5] = volume.getMaxZ();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.structures;
+
+/**
+ * A utility class to pack the coordinates of a block into a primitive long,
+ * so that caches of blocks can store them without allocating.
+ * The x and z values take {@link #HORIZONTAL_BITS} bits each
+ * and the y value takes the remaining {@link #VERTICAL_BITS} bits.
+ */
+public final class PackedPoints {
+
+  /**
+   * The number of bits of a packed point for each of the x and z values.
+   */
+  public static final int HORIZONTAL_BITS = 26;
+
+  /**
+   * The number of bits of a packed point for the y value.
+   */
+  public static final int VERTICAL_BITS = 64 - 2 * HORIZONTAL_BITS;
+
+  private PackedPoints() {
+  }
+
+  /**
+   * Check whether a point fits into the bits of a packed point.
+   *
+   * @param x x value
+   * @param y y value
+   * @param z z value
+   * @return true if the point can be packed
+   */
+  public static boolean isPackable(int x, int y, int z) {
+    return fits(x, HORIZONTAL_BITS) && fits(y, VERTICAL_BITS) && fits(z, HORIZONTAL_BITS);
+  }
+
+  private static boolean fits(int value, int bits) {
+    return value >= -(1 << (bits - 1)) && value < (1 << (bits - 1));
+  }
+
+  /**
+   * Pack a point into a primitive long. The point must be packable.
+   *
+   * @param x x value
+   * @param y y value
+   * @param z z value
+   * @return the packed point
+   * @see #isPackable(int, int, int)
+   */
+  public static long pack(int x, int y, int z) {
+    return ((x & ((1L << HORIZONTAL_BITS) - 1)) << (HORIZONTAL_BITS + VERTICAL_BITS))
+        | ((z & ((1L << HORIZONTAL_BITS) - 1)) << VERTICAL_BITS)
+        | (y & ((1L << VERTICAL_BITS) - 1));
+  }
+
+  /**
+   * Get the x value of a packed point.
+   *
+   * @param point the packed point
+   * @return the x value
+   */
+  public static int unpackX(long point) {
+    return (int) (point >> (HORIZONTAL_BITS + VERTICAL_BITS));
+  }
+
+  /**
+   * Get the y value of a packed point.
+   *
+   * @param point the packed point
+   * @return the y value
+   */
+  public static int unpackY(long point) {
+    return (int) (point << (2 * HORIZONTAL_BITS) >> (2 * HORIZONTAL_BITS));
+  }
+
+  /**
+   * Get the z value of a packed point.
+   *
+   * @param point the packed point
+   * @return the z value
+   */
+  public static int unpackZ(long point) {
+    return (int) (point << HORIZONTAL_BITS >> (HORIZONTAL_BITS + VERTICAL_BITS));
+  }
+
+}
@@ -28,6 +28,8 @@ package com.minecraftonline.nope.structures;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -51,10 +53,80 @@ public interface VolumeMap<S, T extends Volume> {
   @Nonnull
   Collection<T> containersOf(int x, int y, int z);
 
+  /**
+   * Add all volumes that contain this point in 3D space to the given
+   * collection, including the boundaries of the volumes. Implementations
+   * may answer without allocating, so callers on hot paths can reuse
+   * one collection for many queries.
+   *
+   * @param x       x value
+   * @param y       y value
+   * @param z       z value
+   * @param results the collection to which to add the volumes
+   * @return the number of volumes added
+   */
+  default int containersOf(int x, int y, int z, @Nonnull Collection<? super T> results) {
+    Collection<T> containers = containersOf(x, y, z);
+    results.addAll(containers);
+    return containers.size();
+  }
+
+  /**
+   * Find the first volume containing a point which satisfies a filter,
+   * in the order in which this map finds the volumes containing a point.
+   * Maps which are created with an order return the first satisfying volume in that order,
+   * and also list the volumes in {@link #containersOf(int, int, int)} in that order.
+   *
+   * @param x      x value
+   * @param y      y value
+   * @param z      z value
+   * @param filter the filter
+   * @return the first satisfying volume, or null if none exists
+   */
+  @Nullable
+  default T findFirst(int x, int y, int z, @Nonnull Predicate<? super T> filter) {
+    for (T container : containersOf(x, y, z)) {
+      if (filter.test(container)) {
+        return container;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get all volumes which intersect the given volume,
+   * including volumes which only share a face with it.
+   *
+   * @param volume the volume
+   * @return the intersecting volumes, each only once
+   */
+  @Nonnull
+  Collection<T> intersecting(@Nonnull Volume volume);
+
+  /**
+   * Check whether any volume intersects the given volume,
+   * including volumes which only share a face with it.
+   *
+   * @param volume the volume
+   * @return true if any volume intersects
+   */
+  default boolean anyIntersecting(@Nonnull Volume volume) {
+    return !intersecting(volume).isEmpty();
+  }
+
+  /**
+   * Get all volumes which are entirely contained within the given volume.
+   *
+   * @param volume the volume
+   * @return the contained volumes
+   */
+  @Nonnull
+  default Collection<T> containedIn(@Nonnull Volume volume) {
+    return intersecting(volume).stream().filter(volume::contains).collect(Collectors.toList());
+  }
+
   /**
    * Add a new volume into the structure.
-   * Currently, this reconstructs the entire tree because
-   * figuring out how to do it dynamically is too complicated.
    *
    * @param key    the key under which to store and retrieve this volume
    * @param volume the volume
@@ -71,6 +143,18 @@ public interface VolumeMap<S, T extends Volume> {
    */
   void addAll(Map<S, T> map);
 
+  /**
+   * Remove many keys and add many volumes as a single modification
+   * of the structure. Removals are applied before additions, so a key
+   * may be removed and added again to replace its volume.
+   *
+   * @param removals  the keys to remove
+   * @param additions the keys and volumes to add
+   * @see #remove(Object)
+   * @see #addAll(Map)
+   */
+  void update(Collection<S> removals, Map<S, T> additions);
+
   /**
    * Remove the key and volume associated with the key.
    *
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.structures;
+
+import java.util.Comparator;
+import javax.annotation.Nullable;
+
+/**
+ * The types of {@link VolumeMap} which may index volumes.
+ */
+public enum VolumeMapType {
+  /**
+   * A {@link LinearVolumeMap}, which suits only a handful of volumes.
+   */
+  LINEAR,
+  /**
+   * A {@link VolumeTree}, which suits volumes of many different
+   * extents, including large volumes nested within each other.
+   */
+  TREE,
+  /**
+   * A {@link ChunkGridVolumeMap}, which suits many small volumes
+   * which rarely overlap, like plots.
+   */
+  CHUNK_GRID;
+
+  /**
+   * Create an empty map of this type.
+   *
+   * @param <S> the type of key with which to store the volumes
+   * @param <T> the type of volume
+   * @return the map
+   */
+  public <S, T extends Volume> VolumeMap<S, T> create() {
+    return create(null);
+  }
+
+  /**
+   * Create an empty map of this type, which finds the
+   * volumes containing a point in the given order.
+   *
+   * @param order the order, or null if the volumes may be found in any order
+   * @param <S>   the type of key with which to store the volumes
+   * @param <T>   the type of volume
+   * @return the map
+   */
+  public <S, T extends Volume> VolumeMap<S, T> create(@Nullable Comparator<? super T> order) {
+    switch (this) {
+      case LINEAR:
+        return new LinearVolumeMap<>(order);
+      case TREE:
+        return new VolumeTree<>(VolumeTree.SplitStrategy.MEDIAN, order);
+      default:
+        return new ChunkGridVolumeMap<>(order);
+    }
+  }
+
+  /**
+   * Get the type of the given map.
+   *
+   * @param map the map
+   * @return the type, or null if the map is of none of these types
+   */
+  public static VolumeMapType of(VolumeMap<?, ?> map) {
+    if (map instanceof LinearVolumeMap) {
+      return LINEAR;
+    } else if (map instanceof VolumeTree) {
+      return TREE;
+    } else if (map instanceof ChunkGridVolumeMap) {
+      return CHUNK_GRID;
+    } else {
+      return null;
+    }
+  }
+
+}
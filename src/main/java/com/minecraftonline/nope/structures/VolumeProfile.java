@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.minecraftonline.nope.structures;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Measurements of a collection of volumes, with which to
+ * choose the {@link VolumeMapType} best suited to index them.
+ */
+@Getter
+public class VolumeProfile {
+
+  /**
+   * The greatest number of volumes which a {@link LinearVolumeMap} should index.
+   */
+  public static final int LINEAR_MAX_COUNT = 32;
+
+  /**
+   * The greatest average number of volumes containing the center of a volume
+   * with which a {@link ChunkGridVolumeMap} should index the volumes.
+   */
+  static final double CHUNK_GRID_MAX_DEPTH = 3;
+
+  /**
+   * The greatest average number of chunks occupied by each volume
+   * with which a {@link ChunkGridVolumeMap} should index the volumes.
+   */
+  static final double CHUNK_GRID_MAX_FOOTPRINT = 16;
+
+  /**
+   * The greatest share of volumes which occupy too many chunks to be bucketed
+   * with which a {@link ChunkGridVolumeMap} should index the volumes.
+   */
+  static final double CHUNK_GRID_MAX_WIDE_SHARE = 0.05;
+
+  /**
+   * The greatest number of volumes whose centers are sampled
+   * to measure how deeply the volumes overlap.
+   */
+  static final int DEPTH_SAMPLE_COUNT = 64;
+
+  private final int count;
+  private final int wideCount;
+  private final double averageFootprint;
+  private final double averageDepth;
+
+  private VolumeProfile(int count, int wideCount, double averageFootprint, double averageDepth) {
+    this.count = count;
+    this.wideCount = wideCount;
+    this.averageFootprint = averageFootprint;
+    this.averageDepth = averageDepth;
+  }
+
+  /**
+   * Measure a collection of volumes.
+   *
+   * @param volumes the volumes
+   * @return the measurements
+   */
+  public static VolumeProfile of(Collection<? extends Volume> volumes) {
+    List<Volume> list = new ArrayList<>(volumes);
+    int count = list.size();
+    int wideCount = 0;
+    double totalFootprint = 0;
+    for (Volume volume : list) {
+      long footprint = ChunkGridVolumeMap.footprint(volume);
+      if (footprint > ChunkGridVolumeMap.MAX_CHUNKS_PER_VOLUME) {
+        wideCount++;
+      } else {
+        totalFootprint += footprint;
+      }
+    }
+
+    // Count the volumes containing the centers of evenly spaced sampled volumes
+    int samples = Math.min(count, DEPTH_SAMPLE_COUNT);
+    long totalDepth = 0;
+    for (int i = 0; i < samples; i++) {
+      Volume sample = list.get((int) ((long) i * count / samples));
+      int x = (int) (((long) sample.getMinX() + sample.getMaxX()) / 2);
+      int y = (int) (((long) sample.getMinY() + sample.getMaxY()) / 2);
+      int z = (int) (((long) sample.getMinZ() + sample.getMaxZ()) / 2);
+      for (Volume volume : list) {
+        if (volume.contains(x, y, z)) {
+          totalDepth++;
+        }
+      }
+    }
+
+    return new VolumeProfile(count,
+        wideCount,
+        count == wideCount ? 0 : totalFootprint / (count - wideCount),
+        samples == 0 ? 0 : (double) totalDepth / samples);
+  }
+
+  /**
+   * Choose the type of map best suited to index the measured volumes.
+   * Few volumes are scanned linearly, many small and rarely overlapping
+   * volumes are bucketed by chunk, and anything else is divided by a tree.
+   *
+   * @return the type of map
+   */
+  public VolumeMapType recommend() {
+    if (count <= LINEAR_MAX_COUNT) {
+      return VolumeMapType.LINEAR;
+    }
+    if (averageDepth <= CHUNK_GRID_MAX_DEPTH
+        && averageFootprint <= CHUNK_GRID_MAX_FOOTPRINT
+        && wideCount <= CHUNK_GRID_MAX_WIDE_SHARE * count) {
+      return VolumeMapType.CHUNK_GRID;
+    }
+    return VolumeMapType.TREE;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d volumes, %d wide, average footprint %.1f chunks, average depth %.1f",
+        count, wideCount, averageFootprint, averageDepth);
+  }
+
+}
@@ -25,20 +25,20 @@
 
 package com.minecraftonline.nope.structures;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 import javax.annotation.Nonnull;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
+import javax.annotation.Nullable;
 
 /**
  * A data structure optimized to find any volumes which
@@ -50,33 +50,134 @@ import lombok.Getter;
  *
  * <p>Search in the following order:
  * XMIN -> ZMIN -> XMAX -> ZMAX -> ...
- * Then check Y values at the end
+ * Then check Y values at the end.
+ *
+ * <p>If dividing across X and Z stops separating the volumes, like
+ * when many volumes are stacked at the same X and Z, the volumes are
+ * divided across YMIN -> YMAX -> ... instead.
+ *
+ * <p>Single additions and removals are applied in place by only
+ * visiting the subtrees whose regions intersect the volume. A leaf
+ * which grows too large is rebuilt locally, and the whole tree is
+ * rebuilt once the number of in-place modifications outgrows the
+ * number of volumes present at the last full construction.
+ *
+ * <p>Queries do not walk the nodes themselves. The nodes are compiled
+ * into a {@link CompiledTree} of primitive arrays, which answers queries
+ * without allocating. In-place modifications are kept in a small overlay
+ * of the compiled tree instead of compiling the nodes again, and the next
+ * query only compiles the nodes once the overlay has outgrown the square
+ * root of the number of volumes.
  */
 public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
 
+  /**
+   * The smallest number of keys a leaf may hold before
+   * an in-place addition rebuilds it into a subtree.
+   */
+  static final int LEAF_SPLIT_THRESHOLD = 16;
+
+  /**
+   * The smallest number of in-place modifications after
+   * which the whole tree may be reconstructed.
+   */
+  static final int REBUILD_THRESHOLD = 64;
+
+  /**
+   * A batch of modifications is applied in place unless it
+   * modifies more than one in this many volumes.
+   */
+  static final int BATCH_REBUILD_RATIO = 16;
+
+  /**
+   * The smallest number of keys which are worth dividing across
+   * the Y dimension once dividing across X and Z stops separating them.
+   */
+  static final int VERTICAL_SPLIT_THRESHOLD = 8;
+
+  /**
+   * The greatest number of dividers which the {@link SplitStrategy#COST}
+   * strategy evaluates for each division.
+   */
+  static final int COST_CANDIDATE_COUNT = 32;
+
+  /**
+   * The smallest number of keys which the overlay of a compiled
+   * tree may hold before the nodes are compiled again.
+   */
+  static final int OVERLAY_THRESHOLD = 32;
+
   protected final HashMap<S, T> volumes = Maps.newHashMap();
   protected Node root = null;
-  @Getter
-  protected int height = 0;
-  @Getter
-  protected int size = 0;
+  private volatile CompiledTree compiled = null;
+  private SplitStrategy splitStrategy;
+  private final Comparator<? super T> order;
+  private int constructedCount = 0;
+  private int modificationCount = 0;
 
   public VolumeTree() {
+    this(SplitStrategy.MEDIAN);
+  }
+
+  /**
+   * Constructor with a specific strategy for choosing dividers.
+   *
+   * @param splitStrategy the strategy
+   */
+  public VolumeTree(SplitStrategy splitStrategy) {
+    this(splitStrategy, null);
+  }
+
+  /**
+   * Constructor with a specific strategy for choosing dividers and an order
+   * in which to find the volumes containing a point. Every leaf keeps its
+   * volumes in this order, so the first of them found is the first in order.
+   *
+   * @param splitStrategy the strategy
+   * @param order         the order, or null if the volumes may be found in any order
+   */
+  public VolumeTree(SplitStrategy splitStrategy, @Nullable Comparator<? super T> order) {
+    this.splitStrategy = splitStrategy;
+    this.order = order;
     construct();
   }
 
   @Nonnull
   @Override
   public Collection<T> containersOf(int x, int y, int z) {
-    if (this.root == null) {
-      throw new IllegalStateException("Root of VolumeTree is not initialized");
-    }
-    return root.findVolumes(x, y, z).stream().map(volumes::get).collect(Collectors.toList());
+    List<T> containers = new ArrayList<>();
+    containersOf(x, y, z, containers);
+    return containers;
+  }
+
+  @Override
+  public int containersOf(int x, int y, int z, @Nonnull Collection<? super T> results) {
+    return compiled().containersOf(x, y, z, results);
+  }
+
+  @Override
+  public T findFirst(int x, int y, int z, @Nonnull Predicate<? super T> filter) {
+    return compiled().findFirst(x, y, z, filter);
+  }
+
+  @Nonnull
+  @Override
+  public Collection<T> intersecting(@Nonnull Volume volume) {
+    // A volume may sit in more than one leaf, so only keep the first of each
+    Set<T> intersecting = Sets.newIdentityHashSet();
+    compiled().intersecting(volume, intersecting, false);
+    return intersecting;
+  }
+
+  @Override
+  public boolean anyIntersecting(@Nonnull Volume volume) {
+    return compiled().intersecting(volume, new ArrayList<>(1), true) > 0;
   }
 
   /**
-   * Add a single volume. Use {@link #addAll(Map)} to add
-   * multiple volumes, as it is much more efficient.
+   * Add a single volume. Only the subtrees whose regions intersect
+   * the volume are modified. Use {@link #addAll(Map)} to add
+   * many volumes at once, as it is much more efficient.
    *
    * @param key    the key under which to store and retrieve this volume
    * @param volume the volume
@@ -85,7 +186,11 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
   @Override
   public T add(S key, T volume) {
     T replaced = volumes.put(key, volume);
-    construct();
+    if (replaced != null) {
+      root = root.remove(key, replaced);
+    }
+    root = root.insert(key, volume);
+    modified(key);
     return replaced;
   }
 
@@ -97,14 +202,47 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
    */
   @Override
   public void addAll(Map<S, T> map) {
-    volumes.putAll(map);
+    update(Collections.emptyList(), map);
+  }
+
+  /**
+   * Remove and add many volumes. Small batches are applied in place
+   * like {@link #add(Object, Volume)} and {@link #remove(Object)},
+   * and large batches reconstruct the tree exactly once.
+   *
+   * @param removals  the keys to remove
+   * @param additions the keys and volumes to add
+   */
+  @Override
+  public void update(Collection<S> removals, Map<S, T> additions) {
+    int changes = removals.size() + additions.size();
+    if (changes == 0) {
+      return;
+    }
+    if (changes * BATCH_REBUILD_RATIO < volumes.size()) {
+      removals.forEach(this::remove);
+      additions.forEach(this::add);
+      return;
+    }
+    removals.forEach(volumes::remove);
+    volumes.putAll(additions);
     construct();
   }
 
+  /**
+   * Remove a single volume. Only the subtrees whose regions intersect
+   * the volume are modified.
+   *
+   * @param key the key to remove from the tree
+   * @return the removed volume, or null if none existed
+   */
   @Override
   public T remove(S key) {
     T removed = volumes.remove(key);
-    construct();
+    if (removed != null) {
+      root = root.remove(key, removed);
+      modified(key);
+    }
     return removed;
   }
 
@@ -132,121 +270,95 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
 
   @Override
   public int size() {
-    return size;
+    return volumes.size();
   }
 
-  private void construct() {
-    root = construct(Dimension.X, Comparison.MIN, Lists.newLinkedList(volumes.keySet()), 0);
-    height = calculateHeight(root);
-    size = calculateSize(root);
+  /**
+   * Get the strategy for choosing dividers.
+   *
+   * @return the strategy
+   */
+  public SplitStrategy getSplitStrategy() {
+    return splitStrategy;
   }
 
-  protected final Node construct(Dimension dimension,
-                                 Comparison comparison,
-                                 List<S> keys,
-                                 int unchangedCount) {
-    int count = keys.size();
-
-    if (count == 0) {
-      return new EmptyNode();
-    }
-
-    if (count == 1 || unchangedCount >= 4) {
-      return new ViabilityLeaf(Sets.newHashSet(keys));
+  /**
+   * Set the strategy for choosing dividers, reconstructing
+   * the tree if the strategy changes.
+   *
+   * @param splitStrategy the strategy
+   */
+  public void setSplitStrategy(SplitStrategy splitStrategy) {
+    if (this.splitStrategy != splitStrategy) {
+      this.splitStrategy = splitStrategy;
+      construct();
     }
+  }
 
-    int divIndex = count / 2;
-    int divider;
-
-    List<S> leftKeys;
-    List<S> rightKeys;
-    boolean changed;
-    Node left;
-    Node right;
-
-    if (dimension == Dimension.X) {
-      if (comparison == Comparison.MIN) {
+  /**
+   * Get the height of the tree, which is the greatest number
+   * of dividing nodes from the root to any leaf.
+   *
+   * @return the height
+   */
+  public int getHeight() {
+    return calculateHeight(root);
+  }
 
-        /* X MIN */
-        keys.sort(Comparator.comparing(key -> volumes.get(key).getMinX()));
-        while (divIndex > 0 && (
-            volumes.get(keys.get(divIndex)).getMinX()
-                == volumes.get(keys.get(divIndex - 1)).getMinX())
-        ) {
-          divIndex--;
-        }
-        divider = volumes.get(keys.get(divIndex)).getMinX();
-        leftKeys = keys.subList(0, divIndex);
-        rightKeys = Lists.newLinkedList(keys);
-        // get rid of invalid elements in rightKeys
-        changed = rightKeys.removeIf(key -> volumes.get(key).getMaxX() < divider);
-
-        left = construct(Dimension.Z, Comparison.MIN, leftKeys, 0);
-        right = construct(Dimension.Z, Comparison.MIN, rightKeys, changed ? 0 : unchangedCount + 1);
-        return new DimensionDividerMinX(divider, left, right);
-      } else {  // comparison == Comparison.MAX
-
-        /* X MAX */
-        keys.sort(Comparator.comparing(key -> volumes.get(key).getMaxX()));
-        while (divIndex < count - 1 && (
-            volumes.get(keys.get(divIndex)).getMaxX()
-                == volumes.get(keys.get(divIndex - 1)).getMaxX())
-        ) {
-          divIndex++;
-        }
-        divider = volumes.get(keys.get(divIndex - 1)).getMaxX();
-        leftKeys = Lists.newLinkedList(keys);
-        rightKeys = keys.subList(divIndex, count);
-        // get rid of invalid elements in leftKeys
-        changed = leftKeys.removeIf(key -> volumes.get(key).getMinX() > divider);
-
-        left = construct(Dimension.Z, Comparison.MAX, leftKeys, changed ? 0 : unchangedCount + 1);
-        right = construct(Dimension.Z, Comparison.MAX, rightKeys, 0);
-        return new DimensionDividerMaxX(divider, left, right);
-      }
-    } else {  // dimension == Dimension.Z
-      if (comparison == Comparison.MIN) {
-
-        /* Z MIN */
-        keys.sort(Comparator.comparing(key -> volumes.get(key).getMinZ()));
-        while (divIndex > 0 && (
-            volumes.get(keys.get(divIndex)).getMinZ()
-                == volumes.get(keys.get(divIndex - 1)).getMinZ())
-        ) {
-          divIndex--;
-        }
-        divider = volumes.get(keys.get(divIndex)).getMinZ();
-        leftKeys = keys.subList(0, divIndex);
-        rightKeys = Lists.newLinkedList(keys);
-        // get rid of invalid elements in rightKeys
-        changed = rightKeys.removeIf(key -> volumes.get(key).getMaxZ() < divider);
-
-        left = construct(Dimension.X, Comparison.MAX, leftKeys, 0);
-        right = construct(Dimension.X, Comparison.MAX, rightKeys, changed ? 0 : unchangedCount + 1);
-        return new DimensionDividerMinZ(divider, left, right);
-      } else {
+  /**
+   * Get the number of dividing nodes in the tree.
+   *
+   * @return the number of dividers
+   */
+  public int getSize() {
+    return calculateSize(root);
+  }
 
-        /* Z MAX */
-        keys.sort(Comparator.comparing(key -> volumes.get(key).getMaxZ()));
-        while (divIndex < count - 1 && (
-            volumes.get(keys.get(divIndex)).getMaxZ()
-                == volumes.get(keys.get(divIndex - 1)).getMaxZ())
-        ) {
-          divIndex++;
-        }
-        divider = volumes.get(keys.get(divIndex - 1)).getMaxZ();
-        leftKeys = Lists.newLinkedList(keys);
-        rightKeys = keys.subList(divIndex, count);
-        // get rid of invalid elements in leftKeys
-        changed = leftKeys.removeIf(key -> volumes.get(key).getMinZ() > divider);
+  private void construct() {
+    root = new Builder(volumes.keySet()).build();
+    compiled = null;
+    constructedCount = volumes.size();
+    modificationCount = 0;
+  }
 
-        left = construct(Dimension.X, Comparison.MIN, leftKeys, changed ? 0 : unchangedCount + 1);
-        right = construct(Dimension.X, Comparison.MIN, rightKeys, 0);
-        return new DimensionDividerMaxZ(divider, left, right);
+  /**
+   * Get the compiled form of the current nodes, compiling
+   * them first if they were modified since the last query.
+   *
+   * @return the compiled tree
+   */
+  private CompiledTree compiled() {
+    CompiledTree tree = compiled;
+    if (tree == null) {
+      if (this.root == null) {
+        throw new IllegalStateException("Root of VolumeTree is not initialized");
       }
+      tree = new CompiledTree(root);
+      compiled = tree;
     }
+    return tree;
+  }
 
-
+  /**
+   * Record an in-place modification and reconstruct the whole tree
+   * if the in-place modifications have likely degraded it. Otherwise,
+   * the modification is laid over the compiled tree, which is only
+   * discarded once its overlay has grown too large.
+   *
+   * @param key the key of the modified volume
+   */
+  private void modified(S key) {
+    modificationCount++;
+    if (modificationCount > Math.max(REBUILD_THRESHOLD, constructedCount)) {
+      construct();
+      return;
+    }
+    CompiledTree tree = compiled;
+    if (tree != null) {
+      CompiledTree overlaid = new CompiledTree(tree, key);
+      int limit = Math.max(OVERLAY_THRESHOLD, (int) Math.sqrt(volumes.size()));
+      compiled = overlaid.overlaidKeys.size() > limit ? null : overlaid;
+    }
   }
 
   protected int calculateHeight(Node node) {
@@ -327,12 +439,305 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
     }
   }
 
-  enum Dimension {
-    X, Z
+  /**
+   * A strategy for choosing the divider of each division of the tree.
+   */
+  public enum SplitStrategy {
+    /**
+     * Divide at the median value of the bound.
+     */
+    MEDIAN,
+    /**
+     * Divide at whichever value minimizes the expected number of keys
+     * in the child which a query visits, assuming queries are spread
+     * evenly across the extent of the divided volumes.
+     */
+    COST
+  }
+
+  /**
+   * The bounds of a {@link Volume} across which the tree divides.
+   * The order of the constants matters: the {@link Builder} and the
+   * {@link CompiledTree} rely on each maximum directly following its
+   * minimum, and on the x bounds preceding the z bounds, which
+   * precede the y bounds.
+   */
+  enum Bound {
+    MIN_X, MAX_X, MIN_Z, MAX_Z, MIN_Y, MAX_Y;
+
+    /**
+     * The bound across which the children of a division across this bound divide.
+     *
+     * @return the next bound
+     */
+    Bound next() {
+      switch (this) {
+        case MIN_X:
+          return MIN_Z;
+        case MIN_Z:
+          return MAX_X;
+        case MAX_X:
+          return MAX_Z;
+        case MIN_Y:
+          return MAX_Y;
+        case MAX_Y:
+          return MIN_Y;
+        default:
+          return MIN_X;
+      }
+    }
+
+    boolean isMin() {
+      return this == MIN_X || this == MIN_Z || this == MIN_Y;
+    }
+
+    boolean isVertical() {
+      return this == MIN_Y || this == MAX_Y;
+    }
   }
 
-  enum Comparison {
-    MIN, MAX
+  /**
+   * A builder for the nodes of a tree over some set of keys.
+   * The bounds of every volume are copied once into primitive arrays
+   * and the indices of the volumes are sorted once along every {@link Bound}.
+   * Each division then only filters those sorted index arrays into
+   * the ones for its children, which keeps them sorted, so no
+   * sorting or map access happens below the root.
+   */
+  protected class Builder {
+
+    private final List<S> keys;
+    private final int[][] bounds = new int[Bound.values().length][];
+
+    /**
+     * Default constructor.
+     *
+     * @param keys the keys of the volumes for which to build nodes
+     */
+    protected Builder(Collection<S> keys) {
+      this.keys = new ArrayList<>(keys);
+      int count = this.keys.size();
+      for (Bound bound : Bound.values()) {
+        bounds[bound.ordinal()] = new int[count];
+      }
+      for (int i = 0; i < count; i++) {
+        T volume = volumes.get(this.keys.get(i));
+        bounds[Bound.MIN_X.ordinal()][i] = volume.getMinX();
+        bounds[Bound.MAX_X.ordinal()][i] = volume.getMaxX();
+        bounds[Bound.MIN_Z.ordinal()][i] = volume.getMinZ();
+        bounds[Bound.MAX_Z.ordinal()][i] = volume.getMaxZ();
+        bounds[Bound.MIN_Y.ordinal()][i] = volume.getMinY();
+        bounds[Bound.MAX_Y.ordinal()][i] = volume.getMaxY();
+      }
+    }
+
+    /**
+     * Build the nodes.
+     *
+     * @return the root of the built nodes
+     */
+    protected Node build() {
+      int[][] sorted = new int[Bound.values().length][];
+      for (Bound bound : Bound.values()) {
+        sorted[bound.ordinal()] = sortedIndices(bounds[bound.ordinal()]);
+      }
+      return build(Bound.MIN_X, sorted, 0);
+    }
+
+    private Node build(Bound bound, int[][] sorted, int unchangedCount) {
+      int count = sorted[0].length;
+
+      if (count == 0) {
+        return new EmptyNode();
+      }
+
+      // Four divisions across X and Z in a row have not separated these volumes
+      boolean horizontalExhausted = unchangedCount >= 4 && !bound.isVertical();
+      if (horizontalExhausted && count >= VERTICAL_SPLIT_THRESHOLD) {
+        // Divide across Y instead, for as long as that separates them
+        return build(Bound.MIN_Y, sorted, unchangedCount);
+      }
+
+      if (count == 1 || horizontalExhausted || unchangedCount >= 6) {
+        Set<S> viable = Sets.newHashSetWithExpectedSize(count);
+        for (int index : sorted[0]) {
+          viable.add(keys.get(index));
+        }
+        return new ViabilityLeaf(viable);
+      }
+
+      int[] order = sorted[bound.ordinal()];
+      int[] values = bounds[bound.ordinal()];
+      int divIndex = splitStrategy == SplitStrategy.COST
+          ? cheapestDivIndex(bound, sorted)
+          : count / 2;
+      // Once dividing across Y, a division which separates volumes does not return to X and Z
+      int changedCount = bound.isVertical() ? 4 : 0;
+      int divider;
+      int[][] leftSorted;
+      int[][] rightSorted;
+      Node left;
+      Node right;
+
+      if (bound.isMin()) {
+        while (divIndex > 0 && values[order[divIndex]] == values[order[divIndex - 1]]) {
+          divIndex--;
+        }
+        divider = values[order[divIndex]];
+        // left holds minimums below the divider, right holds maximums at or above it
+        leftSorted = select(sorted, values, Integer.MIN_VALUE, (long) divider - 1);
+        rightSorted = select(sorted, bounds[bound.ordinal() + 1], divider, Integer.MAX_VALUE);
+        boolean changed = rightSorted[0].length < count;
+        left = build(bound.next(), leftSorted, changedCount);
+        right = build(bound.next(), rightSorted, changed ? changedCount : unchangedCount + 1);
+      } else {
+        while (divIndex < count - 1 && values[order[divIndex]] == values[order[divIndex - 1]]) {
+          divIndex++;
+        }
+        divider = values[order[divIndex - 1]];
+        // left holds minimums at or below the divider, right holds maximums above it
+        leftSorted = select(sorted, bounds[bound.ordinal() - 1], Integer.MIN_VALUE, divider);
+        rightSorted = select(sorted, values, (long) divider + 1, Integer.MAX_VALUE);
+        boolean changed = leftSorted[0].length < count;
+        left = build(bound.next(), leftSorted, changed ? changedCount : unchangedCount + 1);
+        right = build(bound.next(), rightSorted, changedCount);
+      }
+
+      switch (bound) {
+        case MIN_X:
+          return new DimensionDividerMinX(divider, left, right);
+        case MAX_X:
+          return new DimensionDividerMaxX(divider, left, right);
+        case MIN_Z:
+          return new DimensionDividerMinZ(divider, left, right);
+        case MAX_Z:
+          return new DimensionDividerMaxZ(divider, left, right);
+        case MIN_Y:
+          return new DimensionDividerMinY(divider, left, right);
+        default:
+          return new DimensionDividerMaxY(divider, left, right);
+      }
+    }
+
+    /**
+     * Find the index into the order of a bound at which dividing minimizes
+     * the expected number of keys in the child which a query visits.
+     * The keys a division sends to both children are counted on both sides,
+     * so this also penalizes dividers which cut through many volumes.
+     *
+     * @param bound  the bound across which to divide
+     * @param sorted the index arrays, each sorted by one bound
+     * @return the index at which to divide
+     */
+    private int cheapestDivIndex(Bound bound, int[][] sorted) {
+      int minOrdinal = bound.isMin() ? bound.ordinal() : bound.ordinal() - 1;
+      int maxOrdinal = minOrdinal + 1;
+      int[] minOrder = sorted[minOrdinal];
+      int[] maxOrder = sorted[maxOrdinal];
+      int[] minValues = bounds[minOrdinal];
+      int[] maxValues = bounds[maxOrdinal];
+      int count = minOrder.length;
+      long low = minValues[minOrder[0]];
+      double extent = (double) maxValues[maxOrder[count - 1]] - low + 1;
+
+      int best = count / 2;
+      double bestCost = Double.MAX_VALUE;
+      int step = Math.max(1, count / COST_CANDIDATE_COUNT);
+      for (int i = 1; i < count; i += step) {
+        int leftCount;
+        int rightCount;
+        double leftShare;
+        if (bound.isMin()) {
+          int divider = minValues[minOrder[i]];
+          leftCount = countBelow(minOrder, minValues, divider);
+          rightCount = count - countBelow(maxOrder, maxValues, divider);
+          leftShare = (divider - low) / extent;
+        } else {
+          int divider = maxValues[maxOrder[i - 1]];
+          leftCount = countBelow(minOrder, minValues, (long) divider + 1);
+          rightCount = count - countBelow(maxOrder, maxValues, (long) divider + 1);
+          leftShare = (divider - low + 1) / extent;
+        }
+        leftShare = Math.max(0, Math.min(1, leftShare));
+        double cost = leftShare * leftCount + (1 - leftShare) * rightCount;
+        if (cost < bestCost) {
+          best = i;
+          bestCost = cost;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Count the values which are less than some value.
+     *
+     * @param order  the indices of the values in ascending order of value
+     * @param values the values
+     * @param value  the value
+     * @return the number of values less than the value
+     */
+    private int countBelow(int[] order, int[] values, long value) {
+      int low = 0;
+      int high = order.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (values[order[middle]] < value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * Sort the indices of the given values by value. Each value is packed
+     * with its index into a primitive long so one primitive sort suffices.
+     *
+     * @param values the values
+     * @return the indices of the values in ascending order of value
+     */
+    private int[] sortedIndices(int[] values) {
+      long[] packed = new long[values.length];
+      for (int i = 0; i < values.length; i++) {
+        packed[i] = ((long) values[i] << 32) | i;
+      }
+      Arrays.sort(packed);
+      int[] order = new int[values.length];
+      for (int i = 0; i < values.length; i++) {
+        order[i] = (int) packed[i];
+      }
+      return order;
+    }
+
+    /**
+     * Select the indices whose value lies within an inclusive range,
+     * keeping the order of every sorted index array.
+     *
+     * @param sorted the index arrays, each sorted by one bound
+     * @param values the values to compare against the range
+     * @param low    the inclusive lower end of the range
+     * @param high   the inclusive upper end of the range
+     * @return the selected index arrays
+     */
+    private int[][] select(int[][] sorted, int[] values, long low, long high) {
+      int count = 0;
+      for (int index : sorted[0]) {
+        if (values[index] >= low && values[index] <= high) {
+          count++;
+        }
+      }
+      int[][] selected = new int[sorted.length][count];
+      for (int i = 0; i < sorted.length; i++) {
+        int j = 0;
+        for (int index : sorted[i]) {
+          if (values[index] >= low && values[index] <= high) {
+            selected[i][j++] = index;
+          }
+        }
+      }
+      return selected;
+    }
   }
 
   /**
@@ -340,7 +745,24 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
    * coordinates.
    */
   protected abstract class Node {
-    abstract Set<S> findVolumes(int x, int y, int z);
+
+    /**
+     * Insert a volume into this subtree.
+     *
+     * @param key    the key of the volume
+     * @param volume the volume
+     * @return the node which should replace this one in the tree
+     */
+    abstract Node insert(S key, T volume);
+
+    /**
+     * Remove a volume from this subtree.
+     *
+     * @param key    the key of the volume
+     * @param volume the volume, which decides which subtrees may hold it
+     * @return the node which should replace this one in the tree
+     */
+    abstract Node remove(S key, T volume);
   }
 
   /**
@@ -348,8 +770,13 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
    */
   protected class EmptyNode extends Node {
     @Override
-    Set<S> findVolumes(int x, int y, int z) {
-      return Sets.newHashSet();
+    Node insert(S key, T volume) {
+      return new ViabilityLeaf(Collections.singleton(key));
+    }
+
+    @Override
+    Node remove(S key, T volume) {
+      return this;
     }
   }
 
@@ -357,12 +784,71 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
    * A node which represents a division across a dimension
    * at some dividing integer value.
    */
-  @EqualsAndHashCode(callSuper = true)
-  @Data
   protected abstract class DimensionDivider extends Node {
     protected final int divider;
-    protected final Node left;
-    protected final Node right;
+    protected Node left;
+    protected Node right;
+
+    protected DimensionDivider(int divider, Node left, Node right) {
+      this.divider = divider;
+      this.left = left;
+      this.right = right;
+    }
+
+    /**
+     * The bound of {@link Volume}s across which this node divides.
+     *
+     * @return the bound
+     */
+    abstract Bound bound();
+
+    /**
+     * Whether a volume may contain points which are
+     * searched for in the left subtree.
+     *
+     * @param volume the volume
+     * @return true if it belongs in the left subtree
+     */
+    abstract boolean belongsLeft(Volume volume);
+
+    /**
+     * Whether a volume may contain points which are
+     * searched for in the right subtree.
+     *
+     * @param volume the volume
+     * @return true if it belongs in the right subtree
+     */
+    abstract boolean belongsRight(Volume volume);
+
+    @Override
+    Node insert(S key, T volume) {
+      if (belongsLeft(volume)) {
+        left = left.insert(key, volume);
+      }
+      if (belongsRight(volume)) {
+        right = right.insert(key, volume);
+      }
+      return this;
+    }
+
+    @Override
+    Node remove(S key, T volume) {
+      if (belongsLeft(volume)) {
+        left = left.remove(key, volume);
+      }
+      if (belongsRight(volume)) {
+        right = right.remove(key, volume);
+      }
+      // An empty side holds no containing volumes, so the other side can answer for it,
+      //  since leaves always check that the volumes actually contain the point
+      if (left instanceof VolumeTree.EmptyNode) {
+        return right;
+      }
+      if (right instanceof VolumeTree.EmptyNode) {
+        return left;
+      }
+      return this;
+    }
   }
 
   /**
@@ -375,12 +861,18 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
     }
 
     @Override
-    Set<S> findVolumes(int x, int y, int z) {
-      if (x < divider) {
-        return left.findVolumes(x, y, z);
-      } else {
-        return right.findVolumes(x, y, z);
-      }
+    Bound bound() {
+      return Bound.MIN_X;
+    }
+
+    @Override
+    boolean belongsLeft(Volume volume) {
+      return volume.getMinX() < divider;
+    }
+
+    @Override
+    boolean belongsRight(Volume volume) {
+      return volume.getMaxX() >= divider;
     }
   }
 
@@ -394,12 +886,18 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
     }
 
     @Override
-    Set<S> findVolumes(int x, int y, int z) {
-      if (x <= divider) {
-        return left.findVolumes(x, y, z);
-      } else {
-        return right.findVolumes(x, y, z);
-      }
+    Bound bound() {
+      return Bound.MAX_X;
+    }
+
+    @Override
+    boolean belongsLeft(Volume volume) {
+      return volume.getMinX() <= divider;
+    }
+
+    @Override
+    boolean belongsRight(Volume volume) {
+      return volume.getMaxX() > divider;
     }
   }
 
@@ -413,12 +911,18 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
     }
 
     @Override
-    Set<S> findVolumes(int x, int y, int z) {
-      if (z < divider) {
-        return left.findVolumes(x, y, z);
-      } else {
-        return right.findVolumes(x, y, z);
-      }
+    Bound bound() {
+      return Bound.MIN_Z;
+    }
+
+    @Override
+    boolean belongsLeft(Volume volume) {
+      return volume.getMinZ() < divider;
+    }
+
+    @Override
+    boolean belongsRight(Volume volume) {
+      return volume.getMaxZ() >= divider;
     }
   }
 
@@ -432,34 +936,443 @@ public class VolumeTree<S, T extends Volume> implements VolumeMap<S, T> {
     }
 
     @Override
-    Set<S> findVolumes(int x, int y, int z) {
-      if (z <= divider) {
-        return left.findVolumes(x, y, z);
-      } else {
-        return right.findVolumes(x, y, z);
-      }
+    Bound bound() {
+      return Bound.MAX_Z;
+    }
+
+    @Override
+    boolean belongsLeft(Volume volume) {
+      return volume.getMinZ() <= divider;
+    }
+
+    @Override
+    boolean belongsRight(Volume volume) {
+      return volume.getMaxZ() > divider;
+    }
+  }
+
+  /**
+   * A dividing node which represents a division for
+   * the minimum y value of {@link Volume}s.
+   */
+  protected class DimensionDividerMinY extends DimensionDivider {
+    public DimensionDividerMinY(int divider, Node left, Node right) {
+      super(divider, left, right);
+    }
+
+    @Override
+    Bound bound() {
+      return Bound.MIN_Y;
+    }
+
+    @Override
+    boolean belongsLeft(Volume volume) {
+      return volume.getMinY() < divider;
+    }
+
+    @Override
+    boolean belongsRight(Volume volume) {
+      return volume.getMaxY() >= divider;
     }
   }
 
+  /**
+   * A dividing node which represents a division for
+   * the maximum y value of {@link Volume}s.
+   */
+  protected class DimensionDividerMaxY extends DimensionDivider {
+    public DimensionDividerMaxY(int divider, Node left, Node right) {
+      super(divider, left, right);
+    }
+
+    @Override
+    Bound bound() {
+      return Bound.MAX_Y;
+    }
+
+    @Override
+    boolean belongsLeft(Volume volume) {
+      return volume.getMinY() <= divider;
+    }
+
+    @Override
+    boolean belongsRight(Volume volume) {
+      return volume.getMaxY() > divider;
+    }
+  }
 
   /**
-   * A "leaf" of a tree which essentially just iterates through a set
-   * of "viable" volumes and gives all volumes which do actually
-   * contain the coordinates.
+   * A "leaf" of a tree which essentially just holds a set
+   * of "viable" volumes, some of which may contain the coordinates
+   * which lead to it.
    */
   protected class ViabilityLeaf extends Node {
 
     final Set<S> viable = Sets.newHashSet();
+    /**
+     * The number of keys this leaf held when it was constructed.
+     * Leaves which could not be split further are only rebuilt
+     * once they have grown substantially.
+     */
+    private final int constructedSize;
 
     private ViabilityLeaf(Set<S> viable) {
       this.viable.addAll(viable);
+      this.constructedSize = viable.size();
+    }
+
+    @Override
+    Node insert(S key, T volume) {
+      viable.add(key);
+      if (viable.size() > Math.max(LEAF_SPLIT_THRESHOLD, 2 * constructedSize)) {
+        return new Builder(viable).build();
+      }
+      return this;
     }
 
     @Override
-    Set<S> findVolumes(int x, int y, int z) {
-      Set<S> out = Sets.newHashSet();
-      viable.stream().filter(i -> volumes.get(i).contains(x, y, z)).forEach(out::add);
-      return out;
+    Node remove(S key, T volume) {
+      viable.remove(key);
+      if (viable.isEmpty()) {
+        return new EmptyNode();
+      }
+      return this;
+    }
+  }
+
+  /**
+   * An immutable form of the nodes of a tree, compiled into primitive arrays.
+   * Node {@code i} divides across the {@link Bound} with ordinal {@code bounds[i]}
+   * at {@code dividers[i]} into the nodes {@code lefts[i]} and {@code rights[i]},
+   * unless {@code bounds[i]} is {@link #LEAF}. A leaf instead holds the candidates
+   * from {@code lefts[i]} inclusive to {@code rights[i]} exclusive, whose
+   * volume bounds lie contiguously in {@code candidateBounds}.
+   *
+   * <p>The modifications made since the nodes were compiled lie over the arrays.
+   * Candidates whose keys were modified are hidden, and the volumes now stored
+   * under those keys are checked separately.
+   */
+  protected class CompiledTree {
+
+    private static final int LEAF = -1;
+    private static final int CANDIDATE_STRIDE = 6;
+
+    private final int[] bounds;
+    private final int[] dividers;
+    private final int[] lefts;
+    private final int[] rights;
+    private final int[] candidateBounds;
+    private final Object[] candidateKeys;
+    private final Object[] candidates;
+    private final Set<S> overlaidKeys;
+    private final int[] overlayBounds;
+    private final Object[] overlay;
+    private int nodeCount = 0;
+    private int candidateCount = 0;
+
+    /**
+     * Default constructor.
+     *
+     * @param root the root of the nodes to compile
+     */
+    protected CompiledTree(Node root) {
+      // Every divider has exactly two children, so there is one more leaf than divider
+      int size = 2 * calculateSize(root) + 1;
+      this.bounds = new int[size];
+      this.dividers = new int[size];
+      this.lefts = new int[size];
+      this.rights = new int[size];
+      int count = countCandidates(root);
+      this.candidateBounds = new int[count * CANDIDATE_STRIDE];
+      this.candidateKeys = new Object[count];
+      this.candidates = new Object[count];
+      this.overlaidKeys = Collections.emptySet();
+      this.overlayBounds = new int[0];
+      this.overlay = new Object[0];
+      compile(root);
+    }
+
+    /**
+     * Constructor for a compiled tree which shares the arrays of another,
+     * with one more modification laid over them.
+     *
+     * @param tree the compiled tree
+     * @param key  the key of the modified volume
+     */
+    protected CompiledTree(CompiledTree tree, S key) {
+      this.bounds = tree.bounds;
+      this.dividers = tree.dividers;
+      this.lefts = tree.lefts;
+      this.rights = tree.rights;
+      this.candidateBounds = tree.candidateBounds;
+      this.candidateKeys = tree.candidateKeys;
+      this.candidates = tree.candidates;
+      this.nodeCount = tree.nodeCount;
+      this.candidateCount = tree.candidateCount;
+      this.overlaidKeys = Sets.newHashSet(tree.overlaidKeys);
+      this.overlaidKeys.add(key);
+      List<T> overlayVolumes = new ArrayList<>(this.overlaidKeys.size());
+      for (S overlaidKey : this.overlaidKeys) {
+        // Removed keys stay overlaid to hide their compiled candidates
+        T overlayVolume = volumes.get(overlaidKey);
+        if (overlayVolume != null) {
+          overlayVolumes.add(overlayVolume);
+        }
+      }
+      if (order != null) {
+        overlayVolumes.sort(order);
+      }
+      this.overlayBounds = new int[overlayVolumes.size() * CANDIDATE_STRIDE];
+      this.overlay = new Object[overlayVolumes.size()];
+      for (int i = 0; i < overlay.length; i++) {
+        T overlayVolume = overlayVolumes.get(i);
+        storeBounds(overlayBounds, i * CANDIDATE_STRIDE, overlayVolume);
+        overlay[i] = overlayVolume;
+      }
+    }
+
+    private int countCandidates(Node node) {
+      if (node instanceof VolumeTree.DimensionDivider) {
+        return countCandidates(((DimensionDivider) node).left)
+            + countCandidates(((DimensionDivider) node).right);
+      }
+      if (node instanceof VolumeTree.ViabilityLeaf) {
+        return ((ViabilityLeaf) node).viable.size();
+      }
+      return 0;
+    }
+
+    private int compile(Node node) {
+      int index = nodeCount++;
+      if (node instanceof VolumeTree.DimensionDivider) {
+        DimensionDivider divider = (DimensionDivider) node;
+        bounds[index] = divider.bound().ordinal();
+        dividers[index] = divider.divider;
+        lefts[index] = compile(divider.left);
+        rights[index] = compile(divider.right);
+        return index;
+      }
+      bounds[index] = LEAF;
+      lefts[index] = candidateCount;
+      if (node instanceof VolumeTree.ViabilityLeaf) {
+        List<S> leafKeys = new ArrayList<>(((ViabilityLeaf) node).viable);
+        if (order != null) {
+          leafKeys.sort(Comparator.comparing(volumes::get, order));
+        }
+        for (S key : leafKeys) {
+          T volume = volumes.get(key);
+          storeBounds(candidateBounds, candidateCount * CANDIDATE_STRIDE, volume);
+          candidateKeys[candidateCount] = key;
+          candidates[candidateCount++] = volume;
+        }
+      }
+      rights[index] = candidateCount;
+      return index;
+    }
+
+    private void storeBounds(int[] target, int offset, Volume volume) {
+      target[offset] = volume.getMinX();
+      target[offset + 1] = volume.getMaxX();
+      target[offset + 2] = volume.getMinY();
+      target[offset + 3] = volume.getMaxY();
+      target[offset + 4] = volume.getMinZ();
+      target[offset + 5] = volume.getMaxZ();
+    }
+
+    /**
+     * Whether a compiled candidate has been modified since the nodes
+     * were compiled, so it must be skipped in favor of the overlay.
+     *
+     * @param candidate the index of the candidate
+     * @return true if it is hidden
+     */
+    @SuppressWarnings("SuspiciousMethodCalls")
+    private boolean hidden(int candidate) {
+      return !overlaidKeys.isEmpty() && overlaidKeys.contains(candidateKeys[candidate]);
+    }
+
+    private int leafOf(int x, int y, int z) {
+      int node = 0;
+      int bound;
+      // Bound ordinals list the x, z and then y bounds, each minimum before its maximum
+      while ((bound = bounds[node]) != LEAF) {
+        int value = bound < Bound.MIN_Z.ordinal() ? x : bound < Bound.MIN_Y.ordinal() ? z : y;
+        int divider = dividers[node];
+        boolean right = (bound & 1) == 0 ? value >= divider : value > divider;
+        node = right ? rights[node] : lefts[node];
+      }
+      return node;
+    }
+
+    /**
+     * Add all volumes containing the point to the results, without
+     * allocating anything besides what the results collection allocates,
+     * unless the point lies within a volume of the overlay.
+     *
+     * @param x       x value
+     * @param y       y value
+     * @param z       z value
+     * @param results the collection to which to add the volumes
+     * @return the number of volumes added
+     */
+    @SuppressWarnings("unchecked")
+    protected int containersOf(int x, int y, int z, Collection<? super T> results) {
+      List<T> overlaid = null;
+      for (int i = 0, offset = 0; i < overlay.length; i++, offset += CANDIDATE_STRIDE) {
+        if (contains(overlayBounds, offset, x, y, z)) {
+          if (overlaid == null) {
+            overlaid = new ArrayList<>();
+          }
+          overlaid.add((T) overlay[i]);
+        }
+      }
+      if (overlaid != null && order != null) {
+        // Merge the overlay into the ordered candidates
+        List<T> containers = new ArrayList<>(overlaid);
+        compiledContainersOf(x, y, z, containers);
+        containers.sort(order);
+        results.addAll(containers);
+        return containers.size();
+      }
+      int found = compiledContainersOf(x, y, z, results);
+      if (overlaid != null) {
+        results.addAll(overlaid);
+        found += overlaid.size();
+      }
+      return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compiledContainersOf(int x, int y, int z, Collection<? super T> results) {
+      int node = leafOf(x, y, z);
+      int found = 0;
+      int end = rights[node];
+      int offset = lefts[node] * CANDIDATE_STRIDE;
+      for (int i = lefts[node]; i < end; i++, offset += CANDIDATE_STRIDE) {
+        if (contains(candidateBounds, offset, x, y, z) && !hidden(i)) {
+          results.add((T) candidates[i]);
+          found++;
+        }
+      }
+      return found;
+    }
+
+    private boolean contains(int[] volumeBounds, int offset, int x, int y, int z) {
+      // Non-short-circuit operators keep the scan free of unpredictable branches
+      return volumeBounds[offset] <= x & x <= volumeBounds[offset + 1]
+          & volumeBounds[offset + 2] <= y & y <= volumeBounds[offset + 3]
+          & volumeBounds[offset + 4] <= z & z <= volumeBounds[offset + 5];
+    }
+
+    /**
+     * Find the first volume containing the point which satisfies a filter,
+     * in the order of the candidates of the point's leaf.
+     *
+     * @param x      x value
+     * @param y      y value
+     * @param z      z value
+     * @param filter the filter
+     * @return the first satisfying volume, or null if none exists
+     */
+    @SuppressWarnings("unchecked")
+    protected T findFirst(int x, int y, int z, Predicate<? super T> filter) {
+      T first = null;
+      int node = leafOf(x, y, z);
+      int end = rights[node];
+      int offset = lefts[node] * CANDIDATE_STRIDE;
+      for (int i = lefts[node]; i < end; i++, offset += CANDIDATE_STRIDE) {
+        if (contains(candidateBounds, offset, x, y, z)
+            && !hidden(i)
+            && filter.test((T) candidates[i])) {
+          first = (T) candidates[i];
+          break;
+        }
+      }
+      // The overlay is ordered too, so its first satisfying volume is its only contender
+      for (int i = 0, overlayOffset = 0; i < overlay.length; i++, overlayOffset += CANDIDATE_STRIDE) {
+        if (contains(overlayBounds, overlayOffset, x, y, z)) {
+          T volume = (T) overlay[i];
+          if (first != null && (order == null || order.compare(volume, first) >= 0)) {
+            break;
+          }
+          if (filter.test(volume)) {
+            return volume;
+          }
+        }
+      }
+      return first;
+    }
+
+    /**
+     * Add all volumes intersecting the given volume to the results, by only
+     * visiting the subtrees whose regions intersect the volume.
+     * A volume is added once for every leaf in which it is found.
+     *
+     * @param volume  the volume
+     * @param results the collection to which to add the volumes
+     * @param first   whether to stop at the first intersecting volume
+     * @return the number of volumes added
+     */
+    @SuppressWarnings("unchecked")
+    protected int intersecting(Volume volume, Collection<? super T> results, boolean first) {
+      // Indexed by Bound ordinal, so the minimum of a bound's dimension is at (ordinal & ~1)
+      int[] box = {
+          volume.getMinX(), volume.getMaxX(),
+          volume.getMinZ(), volume.getMaxZ(),
+          volume.getMinY(), volume.getMaxY()
+      };
+      int found = 0;
+      for (int i = 0, offset = 0; i < overlay.length; i++, offset += CANDIDATE_STRIDE) {
+        if (intersects(overlayBounds, offset, box)) {
+          results.add((T) overlay[i]);
+          found++;
+          if (first) {
+            return found;
+          }
+        }
+      }
+      return found + intersecting(0, box, results, first);
+    }
+
+    private boolean intersects(int[] volumeBounds, int offset, int[] box) {
+      return volumeBounds[offset] <= box[1] && box[0] <= volumeBounds[offset + 1]
+          && volumeBounds[offset + 2] <= box[5] && box[4] <= volumeBounds[offset + 3]
+          && volumeBounds[offset + 4] <= box[3] && box[2] <= volumeBounds[offset + 5];
+    }
+
+    @SuppressWarnings("unchecked")
+    private int intersecting(int node, int[] box, Collection<? super T> results, boolean first) {
+      int bound = bounds[node];
+      if (bound == LEAF) {
+        int found = 0;
+        int end = rights[node];
+        int offset = lefts[node] * CANDIDATE_STRIDE;
+        for (int i = lefts[node]; i < end; i++, offset += CANDIDATE_STRIDE) {
+          if (intersects(candidateBounds, offset, box) && !hidden(i)) {
+            results.add((T) candidates[i]);
+            found++;
+            if (first) {
+              return found;
+            }
+          }
+        }
+        return found;
+      }
+      int low = box[bound & ~1];
+      int high = box[bound | 1];
+      int divider = dividers[node];
+      boolean min = (bound & 1) == 0;
+      int found = 0;
+      if (min ? low < divider : low <= divider) {
+        found += intersecting(lefts[node], box, results, first);
+        if (first && found > 0) {
+          return found;
+        }
+      }
+      if (min ? high >= divider : high > divider) {
+        found += intersecting(rights[node], box, results, first);
+      }
+      return found;
     }
   }
 
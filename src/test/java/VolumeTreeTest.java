@@ -25,14 +25,28 @@
 
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.minecraftonline.nope.structures.CachingVolumeMap;
+import com.minecraftonline.nope.structures.CellDecomposition;
+import com.minecraftonline.nope.structures.ChunkGridVolumeMap;
+import com.minecraftonline.nope.structures.Cuboid;
 import com.minecraftonline.nope.structures.Volume;
+import com.minecraftonline.nope.structures.VolumeMap;
+import com.minecraftonline.nope.structures.VolumeMapType;
+import com.minecraftonline.nope.structures.VolumeProfile;
 import com.minecraftonline.nope.structures.VolumeTree;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import lombok.Data;
 import org.junit.jupiter.api.Test;
 
@@ -331,7 +345,110 @@ public class VolumeTreeTest {
     }
 
     System.out.println("Statistics:");
-    System.out.printf("Height: %d, Size: %d\n", tree.getHeight(), tree.size());
+    System.out.printf("Height: %d, Size: %d\n", tree.getHeight(), tree.getSize());
+  }
+
+  @Test
+  public void testRandomDense() {
+    Random random = new Random();
+    int boardSizeX = 48;
+    int boardSizeY = 8;
+    int boardSizeZ = 48;
+
+    for (int trial = 0; trial < 20; trial++) {
+      // Coarse grids force many volumes to share bounds, and thin slabs force overlap
+      int grid = 1 + random.nextInt(8);
+      Map<Integer, Volume> zones = Maps.newHashMap();
+      for (int i = 0; i < 150; i++) {
+        int minX = random.nextInt(boardSizeX / grid) * grid;
+        int minZ = random.nextInt(boardSizeZ / grid) * grid;
+        int minY = random.nextInt(boardSizeY);
+        if (i % 10 == 0) {
+          zones.put(i, new TestVolume(0, boardSizeX - 1, minY, minY, 0, boardSizeZ - 1));
+        } else {
+          zones.put(i, new TestVolume(
+              minX, Math.min(boardSizeX - 1, minX + random.nextInt(boardSizeX / 2)),
+              minY, minY + random.nextInt(boardSizeY - minY),
+              minZ, Math.min(boardSizeZ - 1, minZ + random.nextInt(boardSizeZ / 2))));
+        }
+      }
+
+      VolumeTree<Integer, Volume> tree = new VolumeTree<>();
+      tree.addAll(zones);
+      checkAnswers(zones.values(), tree, boardSizeX, boardSizeY, boardSizeZ, false);
+    }
+  }
+
+  @Test
+  public void testConstructionLarge() {
+    Random random = new Random();
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    for (int i = 0; i < ZONE_COUNT * 50; i++) {
+      int locationX = random.nextInt(WORLD_X_WIDTH * 10);
+      int locationY = random.nextInt(WORLD_Y_WIDTH - ZONE_MAX_Y_WIDTH + 1);
+      int locationZ = random.nextInt(WORLD_Z_WIDTH * 10);
+      zones.put(i, new TestVolume(
+          locationX, locationX + random.nextInt(ZONE_MAX_X_WIDTH),
+          locationY, locationY + random.nextInt(ZONE_MAX_Y_WIDTH),
+          locationZ, locationZ + random.nextInt(ZONE_MAX_Z_WIDTH)));
+    }
+
+    VolumeTree<Integer, Volume> tree = new VolumeTree<>();
+    long constructionElapse = System.currentTimeMillis();
+    tree.addAll(zones);
+    constructionElapse = System.currentTimeMillis() - constructionElapse;
+    System.out.printf("Time to construct tree of %d volumes: %d ms\n", zones.size(), constructionElapse);
+    System.out.printf("Height: %d, Size: %d\n", tree.getHeight(), tree.getSize());
+
+    for (int i = 0; i < TEST_POINT_COUNT; i++) {
+      int x = random.nextInt(WORLD_X_WIDTH * 10);
+      int y = random.nextInt(WORLD_Y_WIDTH);
+      int z = random.nextInt(WORLD_Z_WIDTH * 10);
+      long expected = zones.values().stream().filter(volume -> volume.contains(x, y, z)).count();
+      if (tree.containersOf(x, y, z).size() != expected) {
+        throw new RuntimeException(String.format("Wrong answer at (%d, %d, %d)", x, y, z));
+      }
+    }
+  }
+
+  @Test
+  public void testIncremental() {
+    Random random = new Random();
+    int boardSizeX = 64;
+    int boardSizeY = 16;
+    int boardSizeZ = 64;
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    VolumeTree<Integer, Volume> tree = new VolumeTree<>();
+
+    for (int i = 0; i < 200; i++) {
+      int minX = random.nextInt(boardSizeX);
+      int minY = random.nextInt(boardSizeY);
+      int minZ = random.nextInt(boardSizeZ);
+      Volume volume = new TestVolume(
+          minX, minX + random.nextInt(boardSizeX - minX),
+          minY, minY + random.nextInt(boardSizeY - minY),
+          minZ, minZ + random.nextInt(boardSizeZ - minZ));
+      zones.put(i, volume);
+      tree.add(i, volume);
+
+      // Remove and replace some of the earlier volumes along the way
+      if (i % 3 == 0) {
+        int removed = random.nextInt(i + 1);
+        if (zones.remove(removed) != tree.remove(removed)) {
+          throw new RuntimeException("Removed volumes do not match");
+        }
+      }
+      if (i % 5 == 0 && zones.containsKey(i / 2)) {
+        Volume replacement = new TestVolume(0, boardSizeX - 1, minY, minY, 0, minZ);
+        zones.put(i / 2, replacement);
+        tree.add(i / 2, replacement);
+      }
+    }
+
+    if (tree.size() != zones.size()) {
+      throw new RuntimeException("The tree does not contain every volume");
+    }
+    checkAnswers(zones.values(), tree, boardSizeX, boardSizeY, boardSizeZ, false);
   }
 
   @Test
@@ -361,6 +478,450 @@ public class VolumeTreeTest {
   }
 
 
+  @Test
+  public void testStacked() {
+    Random random = new Random();
+    int boardSizeX = 16;
+    int boardSizeY = 128;
+    int boardSizeZ = 16;
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    for (int i = 0; i < 100; i++) {
+      // Towers of floors which overlap entirely in X and Z
+      int tower = i % 4;
+      int floor = random.nextInt(boardSizeY - 4);
+      zones.put(i, new TestVolume(
+          tower * 2, boardSizeX - 1 - tower,
+          floor, floor + random.nextInt(4),
+          tower, boardSizeZ - 1 - tower * 2));
+    }
+
+    VolumeTree<Integer, Volume> tree = new VolumeTree<>();
+    tree.addAll(zones);
+    System.out.printf("Height: %d, Size: %d\n", tree.getHeight(), tree.getSize());
+    checkAnswers(zones.values(), tree, boardSizeX, boardSizeY, boardSizeZ, false);
+    if (tree.getHeight() < 8) {
+      throw new RuntimeException("Stacked volumes were not divided across the Y dimension");
+    }
+  }
+
+  @Test
+  public void testCostStrategy() {
+    Random random = new Random();
+    int boardSizeX = 64;
+    int boardSizeY = 8;
+    int boardSizeZ = 64;
+
+    for (int trial = 0; trial < 10; trial++) {
+      // Clusters of small volumes, like plots around a few towns
+      Map<Integer, Volume> zones = Maps.newHashMap();
+      for (int i = 0; i < 200; i++) {
+        int centerX = (i % 3) * 20 + 4;
+        int centerZ = (i % 5) * 12 + 2;
+        int minX = centerX + random.nextInt(8);
+        int minY = random.nextInt(boardSizeY);
+        int minZ = centerZ + random.nextInt(6);
+        zones.put(i, new TestVolume(
+            minX, minX + random.nextInt(8),
+            minY, minY + random.nextInt(boardSizeY - minY),
+            minZ, minZ + random.nextInt(4)));
+      }
+
+      VolumeTree<Integer, Volume> tree = new VolumeTree<>(VolumeTree.SplitStrategy.COST);
+      tree.addAll(zones);
+      checkAnswers(zones.values(), tree, boardSizeX, boardSizeY, boardSizeZ, false);
+      tree.setSplitStrategy(VolumeTree.SplitStrategy.MEDIAN);
+      checkAnswers(zones.values(), tree, boardSizeX, boardSizeY, boardSizeZ, false);
+    }
+  }
+
+  @Test
+  public void testReusedBuffer() {
+    Random random = new Random();
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    for (int i = 0; i < ZONE_COUNT; i++) {
+      int locationX = random.nextInt(WORLD_X_WIDTH / 10);
+      int locationY = random.nextInt(WORLD_Y_WIDTH - ZONE_MAX_Y_WIDTH + 1);
+      int locationZ = random.nextInt(WORLD_Z_WIDTH / 10);
+      zones.put(i, new TestVolume(
+          locationX, locationX + random.nextInt(ZONE_MAX_X_WIDTH),
+          locationY, locationY + random.nextInt(ZONE_MAX_Y_WIDTH),
+          locationZ, locationZ + random.nextInt(ZONE_MAX_Z_WIDTH)));
+    }
+    VolumeTree<Integer, Volume> tree = new VolumeTree<>();
+    tree.addAll(zones);
+
+    List<Volume> buffer = new ArrayList<>();
+    for (int i = 0; i < TEST_POINT_COUNT; i++) {
+      int x = random.nextInt(WORLD_X_WIDTH / 10);
+      int y = random.nextInt(WORLD_Y_WIDTH);
+      int z = random.nextInt(WORLD_Z_WIDTH / 10);
+      buffer.clear();
+      int found = tree.containersOf(x, y, z, buffer);
+      Set<Volume> expected = zones.values().stream()
+          .filter(volume -> volume.contains(x, y, z))
+          .collect(Collectors.toSet());
+      if (found != buffer.size() || !expected.equals(Sets.newHashSet(buffer))) {
+        throw new RuntimeException(String.format("Wrong answer at (%d, %d, %d)", x, y, z));
+      }
+      if (i % 1000 == 0) {
+        // Modifications must be visible to the next query
+        tree.remove(random.nextInt(ZONE_COUNT));
+        zones.keySet().retainAll(tree.keySet());
+      }
+    }
+  }
+
+  @Test
+  public void testOverlay() {
+    Random random = new Random();
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    Map<Volume, Integer> priorities = new IdentityHashMap<>();
+    Comparator<Volume> descending = Comparator.comparingInt(volume -> -priorities.get(volume));
+    Predicate<Volume> filter = volume -> priorities.get(volume) % 3 != 0;
+    VolumeTree<Integer, Volume> tree = new VolumeTree<>(VolumeTree.SplitStrategy.MEDIAN, descending);
+    for (int i = 0; i < 3 * ZONE_COUNT; i++) {
+      int locationX = random.nextInt(WORLD_X_WIDTH / 10);
+      int locationZ = random.nextInt(WORLD_Z_WIDTH / 10);
+      Volume zone = new TestVolume(locationX, locationX + random.nextInt(ZONE_MAX_X_WIDTH),
+          0, WORLD_Y_WIDTH - 1,
+          locationZ, locationZ + random.nextInt(ZONE_MAX_Z_WIDTH));
+      priorities.put(zone, random.nextInt());
+      if (i < ZONE_COUNT) {
+        zones.put(i, zone);
+        continue;
+      }
+      if (i == ZONE_COUNT) {
+        tree.addAll(zones);
+      }
+      // Add, replace and remove single volumes between queries, so they are laid over the compiled tree
+      int key = random.nextInt(i);
+      if (random.nextInt(4) == 0) {
+        if (zones.remove(key) != tree.remove(key)) {
+          throw new RuntimeException("Removed volumes do not match");
+        }
+      } else {
+        zones.put(key, zone);
+        tree.add(key, zone);
+      }
+      for (int j = 0; j < 5; j++) {
+        int x = random.nextInt(WORLD_X_WIDTH / 10);
+        int y = random.nextInt(WORLD_Y_WIDTH);
+        int z = random.nextInt(WORLD_Z_WIDTH / 10);
+        List<Volume> expected = zones.values().stream()
+            .filter(volume -> volume.contains(x, y, z))
+            .sorted(descending)
+            .collect(Collectors.toList());
+        Volume expectedFirst = expected.stream().filter(filter).findFirst().orElse(null);
+        Cuboid box = Cuboid.around(x, y, z, random.nextInt(ZONE_MAX_X_WIDTH));
+        Set<Volume> expectedIntersecting = zones.values().stream()
+            .filter(box::intersects)
+            .collect(Collectors.toSet());
+        if (!new ArrayList<>(tree.containersOf(x, y, z)).equals(expected)
+            || tree.findFirst(x, y, z, filter) != expectedFirst
+            || tree.intersecting(box).size() != expectedIntersecting.size()
+            || !expectedIntersecting.containsAll(tree.intersecting(box))) {
+          throw new RuntimeException(String.format("Wrong answer at (%d, %d, %d) after %d modifications",
+              x, y, z, i - ZONE_COUNT + 1));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCache() {
+    // A small cache sweeps its table to invalidate points, and a large cache probes the points
+    testCacheHelper(100);
+    testCacheHelper(1 << 14);
+  }
+
+  /**
+   * A helper to test a cache of the given capacity.
+   *
+   * @param capacity the capacity of the cache
+   */
+  public void testCacheHelper(int capacity) {
+    Random random = new Random();
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    for (int i = 0; i < 50; i++) {
+      int locationX = random.nextInt(64);
+      int locationZ = random.nextInt(64);
+      zones.put(i, new TestVolume(
+          locationX, locationX + random.nextInt(16),
+          0, random.nextInt(16),
+          locationZ, locationZ + random.nextInt(16)));
+    }
+    CachingVolumeMap<Integer, Volume> cache = new CachingVolumeMap<>(new VolumeTree<>(), capacity);
+    cache.addAll(zones);
+
+    for (int i = 0; i < TEST_POINT_COUNT; i++) {
+      // Query few distinct points so that entries are both hit and evicted
+      int x = random.nextInt(24) * 3;
+      int y = random.nextInt(16);
+      int z = random.nextInt(24) * 3;
+      long expected = zones.values().stream().filter(volume -> volume.contains(x, y, z)).count();
+      if (cache.containersOf(x, y, z).size() != expected) {
+        throw new RuntimeException(String.format("Wrong answer at (%d, %d, %d)", x, y, z));
+      }
+      if (cache.getCacheSize() > capacity) {
+        throw new RuntimeException("Cache exceeded its capacity: " + cache.getCacheSize());
+      }
+      if (i % 500 == 0) {
+        // Replace a volume, which only invalidates the points inside the old and new volume
+        int key = random.nextInt(50);
+        int locationX = random.nextInt(64);
+        int locationZ = random.nextInt(64);
+        Volume volume = new TestVolume(
+            locationX, locationX + random.nextInt(16),
+            0, random.nextInt(16),
+            locationZ, locationZ + random.nextInt(16));
+        cache.add(key, volume);
+        zones.put(key, volume);
+      }
+    }
+
+    int cached = cache.getCacheSize();
+    cache.add(-1, new TestVolume(1000, 1010, 0, 16, 1000, 1010));
+    if (cache.getCacheSize() != cached) {
+      throw new RuntimeException("Adding a distant volume invalidated cached points");
+    }
+  }
+
+  @Test
+  public void testChunkGrid() {
+    Random random = new Random();
+    ChunkGridVolumeMap<Integer, Volume> grid = new ChunkGridVolumeMap<>();
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    for (int i = 0; i < ZONE_COUNT; i++) {
+      Volume volume;
+      if (i % 100 == 0) {
+        int y = random.nextInt(WORLD_Y_WIDTH);
+        volume = new TestVolume(Integer.MIN_VALUE, Integer.MAX_VALUE, y, y,
+            Integer.MIN_VALUE, Integer.MAX_VALUE);
+      } else {
+        int locationX = random.nextInt(WORLD_X_WIDTH) - WORLD_X_WIDTH / 2;
+        int locationY = random.nextInt(WORLD_Y_WIDTH - ZONE_MAX_Y_WIDTH + 1);
+        int locationZ = random.nextInt(WORLD_Z_WIDTH) - WORLD_Z_WIDTH / 2;
+        volume = new TestVolume(
+            locationX, locationX + random.nextInt(ZONE_MAX_X_WIDTH * 3),
+            locationY, locationY + random.nextInt(ZONE_MAX_Y_WIDTH),
+            locationZ, locationZ + random.nextInt(ZONE_MAX_Z_WIDTH * 3));
+      }
+      zones.put(i, volume);
+    }
+    grid.addAll(zones);
+
+    for (int i = 0; i < TEST_POINT_COUNT; i++) {
+      int x = random.nextInt(WORLD_X_WIDTH) - WORLD_X_WIDTH / 2;
+      int y = random.nextInt(WORLD_Y_WIDTH);
+      int z = random.nextInt(WORLD_Z_WIDTH) - WORLD_Z_WIDTH / 2;
+      long expected = zones.values().stream().filter(volume -> volume.contains(x, y, z)).count();
+      if (grid.containersOf(x, y, z).size() != expected) {
+        throw new RuntimeException(String.format("Wrong answer at (%d, %d, %d)", x, y, z));
+      }
+      if (i % 10 == 0) {
+        int key = random.nextInt(ZONE_COUNT);
+        grid.remove(key);
+        zones.remove(key);
+      }
+    }
+
+    zones.keySet().forEach(grid::remove);
+    if (grid.getChunkCount() != 0) {
+      throw new RuntimeException("Chunks remain occupied after removing every volume");
+    }
+  }
+
+  @Test
+  public void testIndexTypes() {
+    Random random = new Random();
+    Map<Integer, Volume> plots = Maps.newHashMap();
+    for (int i = 0; i < 2000; i++) {
+      int locationX = random.nextInt(WORLD_X_WIDTH);
+      int locationZ = random.nextInt(WORLD_Z_WIDTH);
+      plots.put(i, new TestVolume(locationX, locationX + random.nextInt(16),
+          0, WORLD_Y_WIDTH - 1,
+          locationZ, locationZ + random.nextInt(16)));
+    }
+    Map<Integer, Volume> arenas = Maps.newHashMap();
+    for (int i = 0; i < 100; i++) {
+      arenas.put(i, new TestVolume(i, 1000 - i, 0, WORLD_Y_WIDTH - 1, i, 1000 - i));
+    }
+    Map<Integer, Volume> few = Maps.newHashMap();
+    for (int i = 0; i < 3; i++) {
+      few.put(i, plots.get(i));
+    }
+
+    if (VolumeProfile.of(few.values()).recommend() != VolumeMapType.LINEAR
+        || VolumeProfile.of(plots.values()).recommend() != VolumeMapType.CHUNK_GRID
+        || VolumeProfile.of(arenas.values()).recommend() != VolumeMapType.TREE) {
+      throw new RuntimeException("Unexpected index type recommendation");
+    }
+
+    for (VolumeMapType type : VolumeMapType.values()) {
+      for (Map<Integer, Volume> zones : Arrays.asList(few, plots, arenas)) {
+        VolumeMap<Integer, Volume> map = type.create();
+        map.addAll(zones);
+        if (VolumeMapType.of(map) != type) {
+          throw new RuntimeException("Created map is not of type " + type);
+        }
+        for (int i = 0; i < TEST_POINT_COUNT / 10; i++) {
+          int x = random.nextInt(WORLD_X_WIDTH);
+          int y = random.nextInt(WORLD_Y_WIDTH);
+          int z = random.nextInt(WORLD_Z_WIDTH);
+          long expected = zones.values().stream().filter(volume -> volume.contains(x, y, z)).count();
+          if (map.containersOf(x, y, z).size() != expected) {
+            throw new RuntimeException(String.format("Wrong answer from %s at (%d, %d, %d)",
+                type, x, y, z));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testIntersecting() {
+    Random random = new Random();
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    for (int i = 0; i < 1000; i++) {
+      int locationX = random.nextInt(WORLD_X_WIDTH);
+      int locationY = random.nextInt(WORLD_Y_WIDTH);
+      int locationZ = random.nextInt(WORLD_Z_WIDTH);
+      zones.put(i, new TestVolume(locationX, locationX + random.nextInt(100),
+          locationY, locationY + random.nextInt(20),
+          locationZ, locationZ + random.nextInt(100)));
+    }
+
+    List<VolumeMap<Integer, Volume>> maps = new ArrayList<>();
+    for (VolumeMapType type : VolumeMapType.values()) {
+      maps.add(type.create());
+    }
+    maps.add(new CachingVolumeMap<>(new VolumeTree<>(), 1024));
+    for (VolumeMap<Integer, Volume> map : maps) {
+      map.addAll(zones);
+      for (int i = 0; i < TEST_POINT_COUNT / 100; i++) {
+        int x = random.nextInt(WORLD_X_WIDTH);
+        int y = random.nextInt(WORLD_Y_WIDTH);
+        int z = random.nextInt(WORLD_Z_WIDTH);
+        Cuboid box = Cuboid.around(x, y, z, random.nextInt(200));
+        Set<Volume> expectedIntersecting = zones.values().stream()
+            .filter(box::intersects)
+            .collect(Collectors.toSet());
+        Set<Volume> expectedContained = zones.values().stream()
+            .filter(box::contains)
+            .collect(Collectors.toSet());
+        Collection<Volume> intersecting = map.intersecting(box);
+        if (intersecting.size() != expectedIntersecting.size()
+            || !expectedIntersecting.containsAll(intersecting)
+            || map.anyIntersecting(box) == expectedIntersecting.isEmpty()
+            || !Sets.newHashSet(map.containedIn(box)).equals(expectedContained)) {
+          throw new RuntimeException(String.format("Wrong intersections from %s with %s",
+              map.getClass().getSimpleName(), box));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFindFirst() {
+    Random random = new Random();
+    List<Integer> shuffled = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      shuffled.add(i);
+    }
+    Collections.shuffle(shuffled, random);
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    Map<Volume, Integer> priorities = new IdentityHashMap<>();
+    for (int i = 0; i < shuffled.size(); i++) {
+      int locationX = random.nextInt(WORLD_X_WIDTH / 10);
+      int locationZ = random.nextInt(WORLD_Z_WIDTH / 10);
+      Volume zone = new TestVolume(locationX, locationX + random.nextInt(i % 10 == 0 ? 500 : 50),
+          0, WORLD_Y_WIDTH - 1,
+          locationZ, locationZ + random.nextInt(i % 10 == 0 ? 500 : 50));
+      zones.put(i, zone);
+      priorities.put(zone, shuffled.get(i));
+    }
+    Comparator<Volume> descending = Comparator.comparingInt(volume -> -priorities.get(volume));
+    Predicate<Volume> filter = volume -> priorities.get(volume) % 3 != 0;
+
+    List<VolumeMap<Integer, Volume>> maps = new ArrayList<>();
+    for (VolumeMapType type : VolumeMapType.values()) {
+      maps.add(type.create(descending));
+    }
+    maps.add(new CachingVolumeMap<>(new VolumeTree<>(VolumeTree.SplitStrategy.COST, descending), 1024));
+    for (VolumeMap<Integer, Volume> map : maps) {
+      map.addAll(zones);
+    }
+    for (int round = 0; round < 2; round++) {
+      for (VolumeMap<Integer, Volume> map : maps) {
+        for (int i = 0; i < TEST_POINT_COUNT / 10; i++) {
+          int x = random.nextInt(WORLD_X_WIDTH / 10);
+          int y = random.nextInt(WORLD_Y_WIDTH);
+          int z = random.nextInt(WORLD_Z_WIDTH / 10);
+          Volume expected = zones.values().stream()
+              .filter(volume -> volume.contains(x, y, z))
+              .filter(filter)
+              .min(descending)
+              .orElse(null);
+          List<Volume> containers = new ArrayList<>(map.containersOf(x, y, z));
+          List<Volume> sorted = new ArrayList<>(containers);
+          sorted.sort(descending);
+          if (map.findFirst(x, y, z, filter) != expected || !containers.equals(sorted)) {
+            throw new RuntimeException(String.format("Wrong first container from %s at (%d, %d, %d)",
+                map.getClass().getSimpleName(), x, y, z));
+          }
+        }
+      }
+      // Swap the priorities of some zones, which must be added again to be reordered
+      for (int i = 0; i < 100; i++) {
+        Volume first = zones.get(random.nextInt(zones.size()));
+        Volume second = zones.get(random.nextInt(zones.size()));
+        int priority = priorities.get(first);
+        priorities.put(first, priorities.get(second));
+        priorities.put(second, priority);
+        for (VolumeMap<Integer, Volume> map : maps) {
+          for (Map.Entry<Integer, Volume> entry : zones.entrySet()) {
+            if (entry.getValue() == first || entry.getValue() == second) {
+              map.add(entry.getKey(), entry.getValue());
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCellDecomposition() {
+    Random random = new Random();
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    for (int i = 0; i < 200; i++) {
+      int locationX = random.nextInt(WORLD_X_WIDTH / 10);
+      int locationY = random.nextInt(WORLD_Y_WIDTH);
+      int locationZ = random.nextInt(WORLD_Z_WIDTH / 10);
+      zones.put(i, new TestVolume(locationX, locationX + random.nextInt(200),
+          locationY, locationY + random.nextInt(50),
+          locationZ, locationZ + random.nextInt(200)));
+    }
+    CellDecomposition<Volume> cells = CellDecomposition.of(zones.values(), Integer.MAX_VALUE);
+    if (cells == null) {
+      throw new RuntimeException("Cell decomposition gave up without a limit");
+    }
+    for (int i = 0; i < TEST_POINT_COUNT; i++) {
+      int x = random.nextInt(WORLD_X_WIDTH / 10 + 400) - 200;
+      int y = random.nextInt(WORLD_Y_WIDTH + 100) - 50;
+      int z = random.nextInt(WORLD_Z_WIDTH / 10 + 400) - 200;
+      Set<Volume> expected = zones.values().stream()
+          .filter(volume -> volume.contains(x, y, z))
+          .collect(Collectors.toSet());
+      if (!cells.getVolumes(cells.cellOf(x, y, z)).equals(expected)) {
+        throw new RuntimeException(String.format("Wrong cell at (%d, %d, %d)", x, y, z));
+      }
+    }
+    System.out.println("Cells: " + cells.getCellCount() + ", Cuboids: " + cells.getLeafCount());
+    if (CellDecomposition.of(zones.values(), 10) != null) {
+      throw new RuntimeException("Cell decomposition exceeded its limit");
+    }
+  }
+
   @Test
   public void testPointGrid2D() {
     testPointGrid2dHelper(2, 1, 2, 1, 0, 1, false);
@@ -0,0 +1,260 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.minecraftonline.nope.host;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.minecraftonline.nope.structures.CachingVolumeMap;
+import com.minecraftonline.nope.structures.Cuboid;
+import com.minecraftonline.nope.structures.Volume;
+import com.minecraftonline.nope.structures.VolumeMap;
+import com.minecraftonline.nope.structures.VolumeMapType;
+import com.minecraftonline.nope.structures.VolumeTree;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A test class for the {@link DictatorLookup}, which compares lookups through the
+ * ordered setting indexes and the {@link LookupCache} against the lookup which
+ * sorted every host assigning a setting at the point.
+ */
+public class DictatorLookupTest {
+
+  private static final int WORLD_X_WIDTH = 300;
+  private static final int WORLD_Y_WIDTH = 256;
+  private static final int WORLD_Z_WIDTH = 300;
+  private static final int ZONE_MAX_WIDTH = 100;
+  private static final int ZONE_COUNT = 500;
+  private static final int TEST_POINT_COUNT = 10000;
+  private static final int USER_COUNT = 4;
+
+  private final Random random = new Random();
+  private final Object[] keys = {new Object(), new Object(), new Object()};
+  private final Object worldHost = new Object();
+  private final Object globalHost = new Object();
+  private final Map<Object, Integer> priorities = new IdentityHashMap<>();
+  /**
+   * The keys each host assigns, and the users its target affects for each of them.
+   */
+  private final Map<Object, Map<Object, Set<Integer>>> targets = new IdentityHashMap<>();
+
+  @Test
+  public void testDictatorLookup() {
+    priorities.put(worldHost, -1);
+    priorities.put(globalHost, -2);
+    List<Object> hosts = new ArrayList<>(Collections.singletonList(worldHost));
+    hosts.add(globalHost);
+    List<Integer> shuffled = new ArrayList<>();
+    for (int i = 0; i < ZONE_COUNT; i++) {
+      shuffled.add(i);
+    }
+    Collections.shuffle(shuffled, random);
+    Map<Integer, Volume> zones = Maps.newHashMap();
+    for (int i = 0; i < ZONE_COUNT; i++) {
+      int x = random.nextInt(WORLD_X_WIDTH);
+      int y = random.nextInt(WORLD_Y_WIDTH);
+      int z = random.nextInt(WORLD_Z_WIDTH);
+      Volume zone = new Cuboid(x, x + random.nextInt(ZONE_MAX_WIDTH),
+          y, y + random.nextInt(WORLD_Y_WIDTH),
+          z, z + random.nextInt(ZONE_MAX_WIDTH));
+      zones.put(i, zone);
+      priorities.put(zone, shuffled.get(i));
+      hosts.add(zone);
+    }
+    for (Object host : hosts) {
+      Map<Object, Set<Integer>> hostTargets = new IdentityHashMap<>();
+      for (Object key : keys) {
+        if (random.nextInt(3) > 0) {
+          Set<Integer> users = Sets.newHashSet();
+          for (int user = 0; user < USER_COUNT; user++) {
+            if (random.nextBoolean()) {
+              users.add(user);
+            }
+          }
+          hostTargets.put(key, users);
+        }
+      }
+      targets.put(host, hostTargets);
+    }
+
+    // The zones of the world, found in no particular order
+    VolumeMap<Integer, Volume> zoneTree = new VolumeTree<>();
+    zoneTree.addAll(zones);
+    // For every type of index, an index of each key with only the zones which assign it
+    Comparator<Volume> descending = Comparator.comparingInt(zone -> -priorities.get(zone));
+    List<Map<Object, VolumeMap<Integer, Volume>>> indexes = new ArrayList<>();
+    List<LookupCache<Object, Object>> caches = new ArrayList<>();
+    for (int type = 0; type <= VolumeMapType.values().length; type++) {
+      Map<Object, VolumeMap<Integer, Volume>> typeIndexes = new IdentityHashMap<>();
+      for (Object key : keys) {
+        VolumeMap<Integer, Volume> index = type < VolumeMapType.values().length
+            ? VolumeMapType.values()[type].create(descending)
+            : new CachingVolumeMap<>(new VolumeTree<>(VolumeTree.SplitStrategy.COST, descending), 1024);
+        index.addAll(zones.entrySet().stream()
+            .filter(entry -> targets.get(entry.getValue()).containsKey(key))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+        typeIndexes.put(key, index);
+      }
+      indexes.add(typeIndexes);
+      // A small cache, so entries of different keys and points replace each other
+      caches.add(new LookupCache<>(1 << 8));
+    }
+
+    // Few points, so they are found in the cache again
+    int[][] points = new int[64][];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new int[]{
+          random.nextInt(WORLD_X_WIDTH),
+          random.nextInt(WORLD_Y_WIDTH),
+          random.nextInt(WORLD_Z_WIDTH)};
+    }
+    long version = 0;
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < TEST_POINT_COUNT; i++) {
+        int[] point = points[random.nextInt(points.length)];
+        Object key = keys[random.nextInt(keys.length)];
+        // A null user ignores targets
+        Integer user = random.nextInt(USER_COUNT + 1) == USER_COUNT ? null : random.nextInt(USER_COUNT);
+        Object expected = sortedLookup(zoneTree, point[0], point[1], point[2], key, user);
+        for (int type = 0; type < indexes.size(); type++) {
+          Object actual = indexedLookup(indexes.get(type).get(key), caches.get(type), version,
+              point[0], point[1], point[2], key, user);
+          if (actual != expected) {
+            throw new RuntimeException(String.format(
+                "Wrong dictator at (%d, %d, %d) with index %d in round %d",
+                point[0], point[1], point[2], type, round));
+          }
+        }
+      }
+
+      // Swap the priorities of some zones, which are added to their indexes again to be reordered
+      for (int i = 0; i < ZONE_COUNT / 10; i++) {
+        int first = random.nextInt(ZONE_COUNT);
+        int second = random.nextInt(ZONE_COUNT);
+        int priority = priorities.get(zones.get(first));
+        priorities.put(zones.get(first), priorities.get(zones.get(second)));
+        priorities.put(zones.get(second), priority);
+        for (Map<Object, VolumeMap<Integer, Volume>> typeIndexes : indexes) {
+          for (Object key : keys) {
+            for (int swapped : new int[]{first, second}) {
+              if (targets.get(zones.get(swapped)).containsKey(key)) {
+                typeIndexes.get(key).add(swapped, zones.get(swapped));
+              }
+            }
+          }
+        }
+      }
+      // Change the world's assignments, which the cache must not serve anymore
+      for (Object key : keys) {
+        if (!targets.get(worldHost).containsKey(key)) {
+          targets.get(worldHost).put(key, Sets.newHashSet(0, 1));
+        } else {
+          targets.get(worldHost).remove(key);
+        }
+      }
+      version++;
+    }
+  }
+
+  /**
+   * Look up a dictator like {@link HostTreeImpl#lookupDictator}, through
+   * the ordered index of a key and the cache of assigning hosts.
+   */
+  private Object indexedLookup(VolumeMap<Integer, Volume> index,
+                               LookupCache<Object, Object> cache,
+                               long version,
+                               int x,
+                               int y,
+                               int z,
+                               Object key,
+                               Integer user) {
+    Object[] hosts = cache.get(worldHost, x, y, z, key, version);
+    if (hosts == null) {
+      hosts = DictatorLookup.assigning(index.containersOf(x, y, z),
+          targets.get(worldHost).containsKey(key) ? worldHost : null,
+          targets.get(globalHost).containsKey(key) ? globalHost : null,
+          Object[]::new);
+      cache.put(worldHost, x, y, z, key, version, hosts);
+    }
+    for (Object host : hosts) {
+      if (user == null || targets.get(host).get(key).contains(user)) {
+        return host;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Look up a dictator like {@link HostTreeImpl#lookupDictator} did before the
+   * setting indexes, by sorting every host which assigns the key at the point.
+   */
+  private Object sortedLookup(VolumeMap<Integer, Volume> zoneTree,
+                              int x,
+                              int y,
+                              int z,
+                              Object key,
+                              Integer user) {
+    LinkedList<Object> hosts = new LinkedList<>();
+    if (targets.get(globalHost).containsKey(key)) {
+      hosts.addFirst(globalHost);
+    }
+    if (targets.get(worldHost).containsKey(key)) {
+      hosts.addFirst(worldHost);
+    }
+    zoneTree.containersOf(x, y, z)
+        .stream()
+        .filter(host -> targets.get(host).containsKey(key))
+        .forEach(hosts::addFirst);
+
+    Queue<Object> hostQueue;
+    Comparator<Object> descending = (h1, h2) -> Integer.compare(priorities.get(h2), priorities.get(h1));
+    if (hosts.size() > 10) {
+      hostQueue = new PriorityQueue<>(hosts.size(), descending);
+      hostQueue.addAll(hosts);
+    } else {
+      hostQueue = new LinkedList<>(hosts);
+      ((LinkedList<Object>) hostQueue).sort(descending);
+    }
+    while (hostQueue.peek() != null) {
+      Object dictator = hostQueue.remove();
+      if (user == null || targets.get(dictator).get(key).contains(user)) {
+        return dictator;
+      }
+    }
+    return null;
+  }
+
+}
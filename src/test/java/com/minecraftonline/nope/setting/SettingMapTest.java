@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 MinecraftOnline
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.minecraftonline.nope.setting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A test class for the {@link SettingMap}, which compares it against a
+ * sorted map of the ordinals of its keys.
+ */
+public class SettingMapTest {
+
+  /**
+   * Enough keys that their ordinals span several words of the bitset.
+   */
+  private static final int KEY_COUNT = 200;
+  private static final int OPERATION_COUNT = 20000;
+
+  @Test
+  public void testAgainstSortedMap() {
+    Random random = new Random();
+    List<SettingKey<Boolean>> keys = new ArrayList<>();
+    for (int i = 0; i < KEY_COUNT; i++) {
+      SettingKey<Boolean> key = new BooleanSettingKey("test-" + i, false);
+      key.setOrdinal(i);
+      keys.add(key);
+    }
+    SettingMap map = new SettingMap();
+    Map<Integer, SettingValue<Boolean>> expected = new TreeMap<>();
+    // Views are taken once, so they must follow every later change
+    Set<SettingKey<?>> keySet = map.keySet();
+    Collection<SettingValue<?>> values = map.values();
+    Set<Map.Entry<SettingKey<?>, SettingValue<?>>> entrySet = map.entrySet();
+
+    for (int i = 0; i < OPERATION_COUNT; i++) {
+      // Favour the ends of the words, where off-by-one errors in ranks would show
+      int ordinal = random.nextBoolean()
+          ? random.nextInt(KEY_COUNT)
+          : Math.min(KEY_COUNT - 1, 64 * random.nextInt(4) + random.nextInt(2) * 63);
+      SettingKey<Boolean> key = keys.get(ordinal);
+      SettingValue<Boolean> previous;
+      SettingValue<Boolean> actual;
+      if (random.nextInt(3) == 0) {
+        previous = expected.remove(ordinal);
+        actual = map.remove(key);
+      } else {
+        SettingValue<Boolean> value = SettingValue.of(random.nextBoolean());
+        previous = expected.put(ordinal, value);
+        actual = map.put(Setting.of(key, value));
+      }
+      if (actual != previous) {
+        throw new RuntimeException("Wrong previous value of key " + ordinal + " at operation " + i);
+      }
+
+      for (int checked = 0; checked < KEY_COUNT; checked++) {
+        if (map.get(keys.get(checked)) != expected.get(checked)
+            || map.containsKey(keys.get(checked)) != expected.containsKey(checked)) {
+          throw new RuntimeException("Wrong value of key " + checked + " at operation " + i);
+        }
+      }
+      List<SettingKey<?>> expectedKeys = new ArrayList<>();
+      expected.keySet().forEach(expectedOrdinal -> expectedKeys.add(keys.get(expectedOrdinal)));
+      List<SettingKey<?>> entryKeys = new ArrayList<>();
+      List<SettingValue<?>> entryValues = new ArrayList<>();
+      entrySet.forEach(entry -> {
+        entryKeys.add(entry.getKey());
+        entryValues.add(entry.getValue());
+      });
+      if (map.size() != expected.size()
+          || map.isEmpty() != expected.isEmpty()
+          || keySet.size() != expected.size()
+          || !new ArrayList<>(keySet).equals(expectedKeys)
+          || !new ArrayList<>(values).equals(new ArrayList<>(expected.values()))
+          || !entryKeys.equals(expectedKeys)
+          || !entryValues.equals(new ArrayList<>(expected.values()))) {
+        throw new RuntimeException("Wrong views at operation " + i);
+      }
+    }
+
+    SettingMap copy = map.copy();
+    if (!copy.keySet().equals(map.keySet())) {
+      throw new RuntimeException("Copy has different keys");
+    }
+    map.clear();
+    if (!keySet.isEmpty() || !values.isEmpty() || !entrySet.isEmpty()
+        || copy.size() != expected.size()) {
+      throw new RuntimeException("Clearing did not empty only the cleared map");
+    }
+  }
+
+  @Test
+  public void testUnmodifiableViews() {
+    SettingKey<Boolean> key = new BooleanSettingKey("test", false);
+    key.setOrdinal(0);
+    SettingMap map = new SettingMap();
+    map.put(Setting.of(key, SettingValue.of(true)));
+    try {
+      map.keySet().remove(key);
+      throw new RuntimeException("The key set was modified");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+    try {
+      map.values().iterator().remove();
+      throw new RuntimeException("The values were modified");
+    } catch (UnsupportedOperationException | IllegalStateException e) {
+      // Expected
+    }
+    try {
+      map.entrySet().clear();
+      throw new RuntimeException("The entries were modified");
+    } catch (UnsupportedOperationException e) {
+      // Expected
+    }
+    if (!map.containsKey(key)) {
+      throw new RuntimeException("A view removed a key");
+    }
+  }
+
+}